@@ -3,20 +3,33 @@ package com.example.nagoyameshi.controller;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.nagoyameshi.repository.RestaurantRepository;
 import com.example.nagoyameshi.repository.UserRepository;
+import com.example.nagoyameshi.service.CacheStatisticsService;
+import com.example.nagoyameshi.service.RestaurantAggregateReconciler;
+import com.example.nagoyameshi.service.RestaurantImagePipeline;
 
 @Controller
 @RequestMapping("/admin")
 public class AdminHomeController {
 	private final UserRepository userRepository;
 	private final RestaurantRepository restaurantRepository;
+	private final RestaurantAggregateReconciler restaurantAggregateReconciler;
+	private final CacheStatisticsService cacheStatisticsService;
+	private final RestaurantImagePipeline restaurantImagePipeline;
 	
-	public AdminHomeController(UserRepository userRepository, RestaurantRepository restaurantRepository) {
+	public AdminHomeController(UserRepository userRepository, RestaurantRepository restaurantRepository,
+			                   RestaurantAggregateReconciler restaurantAggregateReconciler, CacheStatisticsService cacheStatisticsService,
+			                   RestaurantImagePipeline restaurantImagePipeline) {
 		this.userRepository = userRepository;
 		this.restaurantRepository = restaurantRepository;
+		this.restaurantAggregateReconciler = restaurantAggregateReconciler;
+		this.cacheStatisticsService = cacheStatisticsService;
+		this.restaurantImagePipeline = restaurantImagePipeline;
 	}
 	
 	@GetMapping
@@ -30,8 +43,35 @@ public class AdminHomeController {
 		model.addAttribute("freeMembers", freeMembers);
 		model.addAttribute("paidMembers", paidMembers);
 		model.addAttribute("totalRestaurants", totalRestaurants);
+		model.addAttribute("lastReconciliation", restaurantAggregateReconciler.getLastResult());
+		model.addAttribute("cacheStatistics", cacheStatisticsService.getStatistics());
+		model.addAttribute("lastImageBackfill", restaurantImagePipeline.getLastBackfillResult());
 		
 		return "admin/index";
 	}
+	
+	// 店舗の集計値（評価・お気に入り数）をレビュー・お気に入りから求め直し始める（完了を待たずに戻り、進捗は管理者ホームに表示する）
+	@PostMapping("/reconcile")
+	public String reconcile(RedirectAttributes redirectAttributes) {
+		if (!restaurantAggregateReconciler.reconcile()) {
+			redirectAttributes.addFlashAttribute("errorMessage", "集計値の再計算は実行中です。しばらくしてから再度お試しください。");
+		} else {
+			redirectAttributes.addFlashAttribute("successMessage", "集計値の再計算を開始しました。進捗はこのページを再読み込みすると確認できます。");
+		}
+		
+		return "redirect:/admin";
+	}
+	
+	// 店舗が参照している全ての画像のサイズ違いの作り直しを始める（完了を待たずに戻り、進捗は管理者ホームに表示する）
+	@PostMapping("/image-variants")
+	public String backfillImageVariants(RedirectAttributes redirectAttributes) {
+		if (!restaurantImagePipeline.backfill()) {
+			redirectAttributes.addFlashAttribute("errorMessage", "画像のサイズ違いの作成は実行中です。しばらくしてから再度お試しください。");
+		} else {
+			redirectAttributes.addFlashAttribute("successMessage", "画像のサイズ違いの作成を開始しました。進捗はこのページを再読み込みすると確認できます。");
+		}
+		
+		return "redirect:/admin";
+	}
 
 }
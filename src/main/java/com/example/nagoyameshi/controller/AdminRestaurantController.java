@@ -33,6 +33,7 @@ import com.example.nagoyameshi.repository.CategoryRepository;
 import com.example.nagoyameshi.repository.CategoryRestaurantRepository;
 import com.example.nagoyameshi.repository.RegularHolidayRepository;
 import com.example.nagoyameshi.repository.RegularHolidayRestaurantRepository;
+import com.example.nagoyameshi.repository.RestaurantAdminSummary;
 import com.example.nagoyameshi.repository.RestaurantRepository;
 import com.example.nagoyameshi.service.RestaurantService;
 
@@ -81,12 +82,12 @@ public class AdminRestaurantController {
 	@GetMapping
 	public String index(@RequestParam(name = "keyword", required = false) String keyword,
 			            @PageableDefault(page = 0, size = 10, sort = "id", direction = Direction.ASC) Pageable pageable, Model model) {
-		Page<Restaurant> restaurantPage;
+		Page<RestaurantAdminSummary> restaurantPage;
 		
 		if(keyword != null && !keyword.isEmpty()) {
-			restaurantPage = restaurantRepository.findByNameLike("%" + keyword + "%", pageable);
+			restaurantPage = restaurantRepository.findSummariesByNameLike("%" + keyword + "%", pageable);
 		} else {
-			restaurantPage = restaurantRepository.findAll(pageable);
+			restaurantPage = restaurantRepository.findAllSummaries(pageable);
 		}
 		
 		model.addAttribute("restaurantPage", restaurantPage);
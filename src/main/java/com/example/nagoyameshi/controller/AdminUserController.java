@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import com.example.nagoyameshi.entity.User;
 import com.example.nagoyameshi.repository.UserRepository;
+import com.example.nagoyameshi.repository.UserSummary;
 
 @Controller
 @RequestMapping("/admin/users")
@@ -27,14 +28,14 @@ import com.example.nagoyameshi.repository.UserRepository;
 	public String index(@RequestParam(name = "keyword", required = false) String keyword,
 			            @PageableDefault(page = 0, size = 10, sort = "id", direction = Direction.ASC) 
 			            Pageable pageable, Model model) {
-		Page<User> userPage;
+		Page<UserSummary> userPage;
 		
 		// keywordが指定されていれば、部分一致検索を行う
 		if(keyword != null && !keyword.isEmpty()) {
-			userPage = userRepository.findByNameLikeOrFuriganaLike("%"+ keyword +"%", "%"+ keyword +"%", pageable);
+			userPage = userRepository.findSummariesByNameLikeOrFuriganaLike("%"+ keyword +"%", "%"+ keyword +"%", pageable);
 		} else {
 			// keywordが指定されていなければ、全てのユーザーを取得する
-			userPage = userRepository.findAll(pageable);
+			userPage = userRepository.findAllSummaries(pageable);
 		}
 		
 		model.addAttribute("userPage", userPage);
@@ -0,0 +1,41 @@
+package com.example.nagoyameshi.controller;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.example.nagoyameshi.entity.Company;
+import com.example.nagoyameshi.repository.CompanyRepository;
+import com.example.nagoyameshi.security.UserDetailsImpl;
+import com.example.nagoyameshi.service.SiteVersion;
+
+@Controller
+@RequestMapping("/company")
+public class CompanyController {
+	private final CompanyRepository companyRepository;
+	private final SiteVersion siteVersion;
+	
+	public CompanyController(CompanyRepository companyRepository, SiteVersion siteVersion) {
+		this.companyRepository = companyRepository;
+		this.siteVersion = siteVersion;
+	}
+	
+	@GetMapping
+	public String index(@AuthenticationPrincipal UserDetailsImpl userDetailsImpl, Model model, ServletWebRequest webRequest) {
+		Company company = companyRepository.findFirstByOrderByIdAsc();
+		
+		// 会社概要が更新されていなければ描画せずに304を返す
+		long lastModified = Math.max(company.getUpdatedAt().getTime(), siteVersion.getLastModified());
+		if (ConditionalGet.isNotModified(webRequest, userDetailsImpl, lastModified, company.getId())) {
+			return null;
+		}
+		
+		model.addAttribute("company", company);
+		
+		return "company/index";
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.example.nagoyameshi.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.HttpSessionCsrfTokenRepository;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import com.example.nagoyameshi.entity.User;
+import com.example.nagoyameshi.security.UserDetailsImpl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// 会員向けページの条件付きGET（If-None-Match / If-Modified-Since）の判定
+// 検証子は呼び出し側が渡すページの内容を表す値に、ヘッダーに表示する会員の情報とCSRFトークンを加えて作る
+final class ConditionalGet {
+	private static final HttpSessionCsrfTokenRepository CSRF_TOKEN_REPOSITORY = new HttpSessionCsrfTokenRepository();
+
+	private ConditionalGet() {
+	}
+
+	// ブラウザの持つページから変わっていなければ304を設定してtrueを返す（呼び出し側はnullを返し、テンプレートを描画しない）
+	static boolean isNotModified(ServletWebRequest webRequest, UserDetailsImpl userDetailsImpl, long lastModified, Object... validators) {
+		HttpServletRequest request = webRequest.getRequest();
+		HttpServletResponse response = webRequest.getResponse();
+
+		// フラッシュメッセージを表示するページは毎回描画する（Spring Securityのno-storeのままにする）
+		Map<String, ?> inputFlashMap = RequestContextUtils.getInputFlashMap(request);
+		if (inputFlashMap != null && !inputFlashMap.isEmpty()) {
+			return false;
+		}
+
+		StringBuilder key = new StringBuilder();
+		for (Object validator : validators) {
+			key.append(validator).append('|');
+		}
+		key.append(lastModified).append('|');
+
+		if (userDetailsImpl != null) {
+			User user = userDetailsImpl.getUser();
+			key.append(user.getId()).append('|').append(user.getName()).append('|').append(user.getRole().getName()).append('|');
+
+			// フォームに埋め込むCSRFトークンが変わったら（ログインし直したときなど）一致させない
+			// リクエスト属性のトークンはリクエストごとにマスクされるため、セッションに保存された元のトークンを使う
+			CsrfToken csrfToken = CSRF_TOKEN_REPOSITORY.loadToken(request);
+			if (csrfToken != null) {
+				key.append(csrfToken.getToken());
+			}
+		}
+
+		String etag = "W/\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+
+		// ブラウザに保存させたうえで、表示のたびに検証させる（ログイン中のページは共有キャッシュに保存させない）
+		CacheControl cacheControl = userDetailsImpl != null ? CacheControl.noCache().cachePrivate() : CacheControl.noCache();
+		response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+
+		return webRequest.checkNotModified(etag, lastModified);
+	}
+
+}
@@ -16,6 +16,7 @@ import com.example.nagoyameshi.entity.Favorite;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.User;
 import com.example.nagoyameshi.repository.FavoriteRepository;
+import com.example.nagoyameshi.repository.FavoriteSummary;
 import com.example.nagoyameshi.repository.RestaurantRepository;
 import com.example.nagoyameshi.repository.UserRepository;
 import com.example.nagoyameshi.security.UserDetailsImpl;
@@ -50,7 +51,7 @@ public class FavoriteController {
 //			return "redirect:/subscription/register";
 //		}
 		
-		Page<Favorite> favoritePage = favoriteRepository.findByUserOrderByCreatedAtDesc(user, pageable);
+		Page<FavoriteSummary> favoritePage = favoriteRepository.findSummariesByUser(user, pageable);
 		
 		model.addAttribute("favoritePage", favoritePage);
 		
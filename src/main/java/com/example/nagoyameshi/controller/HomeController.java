@@ -1,41 +1,40 @@
 package com.example.nagoyameshi.controller;
 
-import java.util.List;
-
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import com.example.nagoyameshi.entity.Category;
-import com.example.nagoyameshi.entity.Restaurant;
-import com.example.nagoyameshi.repository.CategoryRepository;
-import com.example.nagoyameshi.repository.RestaurantRepository;
 import com.example.nagoyameshi.security.UserDetailsImpl;
+import com.example.nagoyameshi.service.HomePageCache;
+import com.example.nagoyameshi.service.HomePageSnapshot;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Controller
 public class HomeController {
-	private final RestaurantRepository restaurantRepository;
-	private final CategoryRepository categoryRepository;
+	private final HomePageCache homePageCache;
+	private final RestaurantCardRenderer restaurantCardRenderer;
 	
-	public HomeController(RestaurantRepository restaurantRepository, CategoryRepository categoryRepository) {
-		this.restaurantRepository = restaurantRepository;
-		this.categoryRepository = categoryRepository;
+	public HomeController(HomePageCache homePageCache, RestaurantCardRenderer restaurantCardRenderer) {
+		this.homePageCache = homePageCache;
+		this.restaurantCardRenderer = restaurantCardRenderer;
 	}
 	
 	@GetMapping("/")
-	public String index(@AuthenticationPrincipal UserDetailsImpl userDetailsImpl, Model model) {
+	public String index(@AuthenticationPrincipal UserDetailsImpl userDetailsImpl, Model model, HttpServletRequest request, HttpServletResponse response) {
 		if (userDetailsImpl != null && "ROLE_ADMIN".equals(userDetailsImpl.getUser().getRole().getName())) {
 			return "redirect:/admin";
 		}
 		
-		//List<Restaurant> restaurants = restaurantRepository.findAll();
-		List<Restaurant> newRestaurants = restaurantRepository.findTop6ByOrderByCreatedAtDesc();
-		List<Category> categories = categoryRepository.findAll();
+		// 店舗・カテゴリはメモリ上のスナップショットから表示する（データベースは読まない）
+		// 店舗のカードは描画済みのものがあればそれを使う
+		HomePageSnapshot homePageSnapshot = homePageCache.getSnapshot();
 		
-		//model.addAttribute("restaurants", restaurants);
-		model.addAttribute("newRestaurants", newRestaurants);
-		model.addAttribute("categories", categories);
+		model.addAttribute("newRestaurantCards", restaurantCardRenderer.renderVerticalCards(homePageSnapshot.getNewRestaurants(), false, request, response));
+		model.addAttribute("popularRestaurantCards", restaurantCardRenderer.renderVerticalCards(homePageSnapshot.getPopularRestaurants(), true, request, response));
+		model.addAttribute("categories", homePageSnapshot.getCategories());
 		
 		return "index";
 	}
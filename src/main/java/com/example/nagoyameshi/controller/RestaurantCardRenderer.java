@@ -0,0 +1,109 @@
+package com.example.nagoyameshi.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.CategoryChangeEvent;
+import com.example.nagoyameshi.repository.RestaurantSummary;
+import com.example.nagoyameshi.service.RestaurantKeysetPage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// 店舗一覧・トップページの店舗のカードを店舗ごとに描画したHTMLを保持し、ページのテンプレートではつなげるだけにする
+// キーには店舗ID・updated_at・表示するカテゴリのID・カテゴリのバージョンを含めるため、内容が変わったカードは別のキーで描画し直される（古いカードは件数の上限で追い出される）
+// 評価やお気に入り数の更新もupdated_atを進めるが、DATETIMEの精度は秒のため件数もキーに含める
+// 画像の差し替えとサイズ違い・縮小画像の作成も同じ秒に重なることがあるため、画像のファイル名・作成済みの幅・縮小画像もキーに含める
+// ログイン中のユーザーごとに変わるヘッダーやお気に入りの状態はカードに含めない（ページ側で毎回描画する）
+@Component
+public class RestaurantCardRenderer {
+	private final ITemplateEngine templateEngine;
+	private final JakartaServletWebApplication webApplication;
+	private final Cache<String, String> cards;
+	// カテゴリ名の変更・削除で進める（カテゴリ名はupdated_atに現れないため）
+	private final AtomicLong categoryVersion = new AtomicLong();
+
+	public RestaurantCardRenderer(ITemplateEngine templateEngine, ServletContext servletContext,
+			                      @Value("${nagoyameshi.card-cache.max-size:5000}") long maxSize) {
+		this.templateEngine = templateEngine;
+		this.webApplication = JakartaServletWebApplication.buildApplication(servletContext);
+		this.cards = Caffeine.newBuilder()
+				             .maximumSize(maxSize)
+				             .build();
+	}
+
+	@TransactionalEventListener
+	public void onCategoryChange(CategoryChangeEvent categoryChangeEvent) {
+		categoryVersion.incrementAndGet();
+	}
+
+	// 店舗一覧の横型のカード（ページの店舗の順）
+	public List<String> renderHorizontalCards(RestaurantKeysetPage restaurantPage, HttpServletRequest request, HttpServletResponse response) {
+		List<String> renderedCards = new ArrayList<>();
+		long version = categoryVersion.get();
+
+		for (RestaurantSummary restaurant : restaurantPage) {
+			List<Category> categories = restaurantPage.getCategories(restaurant);
+			String key = "h|" + restaurant.getId() + "|" + restaurant.getUpdatedAt().getTime() + "|" + restaurant.getRatingCount() + "|" + restaurant.getRatingAverage()
+					   + "|" + imageKeyOf(restaurant.getImage(), restaurant.getImageWidths(), restaurant.getImagePlaceholder())
+					   + "|" + categoryIdsOf(categories) + "|" + version;
+
+			renderedCards.add(cards.get(key, k -> render("horizontalRestaurantCard", Map.of("restaurant", restaurant, "categories", categories), request, response)));
+		}
+
+		return renderedCards;
+	}
+
+	// トップページの縦型のカード（人気のお店ではお気に入り数も表示する）
+	public List<String> renderVerticalCards(List<Restaurant> restaurants, boolean showFavoriteCount, HttpServletRequest request, HttpServletResponse response) {
+		List<String> renderedCards = new ArrayList<>();
+		long version = categoryVersion.get();
+
+		for (Restaurant restaurant : restaurants) {
+			String key = "v|" + restaurant.getId() + "|" + restaurant.getUpdatedAt().getTime() + "|" + restaurant.getRatingCount() + "|" + restaurant.getRatingAverage()
+					   + "|" + (showFavoriteCount ? restaurant.getFavoriteCount() : "-")
+					   + "|" + imageKeyOf(restaurant.getImage(), restaurant.getImageWidths(), restaurant.getImagePlaceholder())
+					   + "|" + categoryIdsOf(restaurant.getCategories()) + "|" + version;
+
+			renderedCards.add(cards.get(key, k -> render("verticalRestaurantCard", Map.of("restaurant", restaurant, "showFavoriteCount", showFavoriteCount), request, response)));
+		}
+
+		return renderedCards;
+	}
+
+	// 縮小画像はdata URIで数百バイトあるため、キーにはハッシュ値だけを含める
+	private static String imageKeyOf(String image, String imageWidths, String imagePlaceholder) {
+		return image + "|" + imageWidths + "|" + Objects.hashCode(imagePlaceholder);
+	}
+
+	private static String categoryIdsOf(List<Category> categories) {
+		return categories.stream()
+				         .map(category -> String.valueOf(category.getId()))
+				         .collect(Collectors.joining(","));
+	}
+
+	// fragment.htmlのカードの部品だけを描画する（リンクのコンテキストパスは現在のリクエストから求める）
+	private String render(String fragment, Map<String, Object> variables, HttpServletRequest request, HttpServletResponse response) {
+		WebContext context = new WebContext(webApplication.buildExchange(request, response), LocaleContextHolder.getLocale(), variables);
+		return templateEngine.process("fragment", Set.of(fragment), context);
+	}
+
+}
@@ -1,12 +1,14 @@
 package com.example.nagoyameshi.controller;
 
+import java.sql.Timestamp;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -14,20 +16,33 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.example.nagoyameshi.entity.Category;
 import com.example.nagoyameshi.entity.CategoryRestaurant;
 import com.example.nagoyameshi.entity.Favorite;
 import com.example.nagoyameshi.entity.RegularHolidayRestaurant;
 import com.example.nagoyameshi.entity.Restaurant;
-import com.example.nagoyameshi.entity.User;
 import com.example.nagoyameshi.repository.CategoryRepository;
 import com.example.nagoyameshi.repository.CategoryRestaurantRepository;
 import com.example.nagoyameshi.repository.FavoriteRepository;
+import com.example.nagoyameshi.repository.RegularHolidayRepository;
 import com.example.nagoyameshi.repository.RegularHolidayRestaurantRepository;
 import com.example.nagoyameshi.repository.RestaurantRepository;
+import com.example.nagoyameshi.search.AutocompleteIndex;
+import com.example.nagoyameshi.search.KeywordMatch;
+import com.example.nagoyameshi.search.Suggestion;
 import com.example.nagoyameshi.security.UserDetailsImpl;
-import com.example.nagoyameshi.service.FavoriteService;
+import com.example.nagoyameshi.service.CoFavoriteRecommender;
+import com.example.nagoyameshi.service.RestaurantKeysetPage;
+import com.example.nagoyameshi.service.RestaurantListingService;
+import com.example.nagoyameshi.service.RestaurantSearchCondition;
+import com.example.nagoyameshi.service.SimilarRestaurantRecommender;
+import com.example.nagoyameshi.service.SiteVersion;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Controller
 @RequestMapping("/restaurants")
@@ -39,105 +54,166 @@ public class RestaurantController {
 	// 何円刻みにするか
 	private final Integer PRICE_UNIT = 500;
 	
+	// 営業時間のセレクトボックスを何分刻みにするか
+	private final Integer TIME_UNIT = 30;
+	
+	// 入力候補の最大件数
+	private final Integer SUGGESTION_LIMIT = 10;
+	
 	private final RestaurantRepository restaurantRepository;
 	private final CategoryRepository categoryRepository;
+	private final RegularHolidayRepository regularHolidayRepository;
 	private final RegularHolidayRestaurantRepository regularHolidayRestaurantRepository;
 	private final CategoryRestaurantRepository categoryRestaurantRepository;
 	private final FavoriteRepository favoriteRepository;
-	private final FavoriteService favoriteService;
+	private final RestaurantListingService restaurantListingService;
+	private final AutocompleteIndex autocompleteIndex;
+	private final CoFavoriteRecommender coFavoriteRecommender;
+	private final SimilarRestaurantRecommender similarRestaurantRecommender;
+	private final SiteVersion siteVersion;
+	private final RestaurantCardRenderer restaurantCardRenderer;
 	
-	public RestaurantController(RestaurantRepository restaurantRepository, CategoryRepository categoryRepository, RegularHolidayRestaurantRepository regularHolidayRestaurantRepository,
-			                    CategoryRestaurantRepository categoryRestaurantRepository, FavoriteRepository favoriteRepository, FavoriteService favoriteService){
+	public RestaurantController(RestaurantRepository restaurantRepository, CategoryRepository categoryRepository, RegularHolidayRepository regularHolidayRepository,
+			                    RegularHolidayRestaurantRepository regularHolidayRestaurantRepository,
+			                    CategoryRestaurantRepository categoryRestaurantRepository, FavoriteRepository favoriteRepository,
+			                    RestaurantListingService restaurantListingService, AutocompleteIndex autocompleteIndex,
+			                    CoFavoriteRecommender coFavoriteRecommender, SimilarRestaurantRecommender similarRestaurantRecommender,
+			                    SiteVersion siteVersion, RestaurantCardRenderer restaurantCardRenderer){
 		this.restaurantRepository = restaurantRepository;
 		this.categoryRepository = categoryRepository;
+		this.regularHolidayRepository = regularHolidayRepository;
 		this.regularHolidayRestaurantRepository = regularHolidayRestaurantRepository;
 		this.categoryRestaurantRepository = categoryRestaurantRepository;
 		this.favoriteRepository = favoriteRepository;
-		this.favoriteService = favoriteService;
+		this.restaurantListingService = restaurantListingService;
+		this.autocompleteIndex = autocompleteIndex;
+		this.coFavoriteRecommender = coFavoriteRecommender;
+		this.similarRestaurantRecommender = similarRestaurantRecommender;
+		this.siteVersion = siteVersion;
+		this.restaurantCardRenderer = restaurantCardRenderer;
 	}
 	
 	@GetMapping
 	public String index(@RequestParam(name = "keyword", required = false) String keyword,
-			            @RequestParam(name = "categoryId", required = false) Integer categoryId,
+			            @RequestParam(name = "categoryId", required = false) List<Integer> categoryIds,
+			            @RequestParam(name = "minPrice", required = false) Integer minPrice,
 			            @RequestParam(name = "price", required = false) Integer price,
+			            @RequestParam(name = "weekday", required = false) Integer weekday,
+			            @RequestParam(name = "time", required = false) @DateTimeFormat(pattern = "HH:mm") LocalTime time,
+			            @RequestParam(name = "openNow", defaultValue = "false") boolean openNow,
 			            @RequestParam(name = "order", required = false) String order,
+			            @RequestParam(name = "cursor", required = false) String cursor,
+			            @RequestParam(name = "direction", required = false) String direction,
+			            @RequestParam(name = "total", required = false) Long total,
 			            @PageableDefault(page = 0, size = 10, sort = "id", direction = Direction.ASC) Pageable pageable,
-			            Model model) {
-		Page<Restaurant> restaurantPage;
+			            Model model, HttpServletRequest request, HttpServletResponse response) {
+		RestaurantSearchCondition condition = new RestaurantSearchCondition(keyword, categoryIds, minPrice, price, weekday, time, openNow, order);
+		KeywordMatch keywordMatch = restaurantListingService.matchKeyword(condition);
+		RestaurantKeysetPage restaurantPage = restaurantListingService.findRestaurants(condition, keywordMatch, cursor, direction, total,
+				                                                                       pageable.getPageNumber(), pageable.getPageSize());
 		
-		if (keyword != null && !keyword.isEmpty()) {
-			if (order != null && order.equals("lowestPriceAsc")) {
-				restaurantPage = restaurantRepository.findByNameLikeOrAddressLikeOrderByLowestPriceAsc("%" + keyword + "%", "%" + keyword + "%", pageable);
-			} else if (order != null && order.equals("highestPriceDesc")) {
-				restaurantPage = restaurantRepository.findByNameLikeOrAddressLikeOrderByHighestPriceDesc("%" + keyword + "%", "%" + keyword + "%", pageable);
-			} else {
-				restaurantPage = restaurantRepository.findByNameLikeOrAddressLikeOrderByCreatedAtDesc("%" + keyword + "%", "%" + keyword + "%", pageable);
-			}
-		} else if (categoryId != null) {
-			if (order != null && order.equals("lowestPriceAsc")) {
-				restaurantPage = restaurantRepository.findByIdOrderByLowestPriceAsc(categoryId, pageable);
-			} else if (order != null && order.equals("highestPriceDesc")) {
-				restaurantPage = restaurantRepository.findByIdOrderByHighestPriceDesc(categoryId, pageable);
-			} else {
-				restaurantPage = restaurantRepository.findByIdOrderByCreatedAtDesc(categoryId, pageable);
-			}
-		} else if (price != null) {
-			if (order != null && order.equals("lowestPriceAsc")) {
-				restaurantPage = restaurantRepository.findByLowestPriceLessThanEqualOrderByLowestPriceAsc(price, pageable);
-			}  else if (order != null && order.equals("highestPriceDesc")) {
-				restaurantPage = restaurantRepository.findByLowestPriceLessThanEqualOrderByHighestPriceDesc(price, pageable);
-			} else {
-				restaurantPage = restaurantRepository.findByLowestPriceLessThanEqualOrderByCreatedAtDesc(price, pageable);
-			}
-		} else  {
-			if (order != null && order.equals("lowestPriceAsc")) {
-				restaurantPage = restaurantRepository.findAllByOrderByLowestPriceAsc(pageable);
-			} else if (order != null && order.equals("highestPriceDesc")) {
-				restaurantPage = restaurantRepository.findAllByOrderByHighestPriceDesc(pageable);
-			} else {
-				restaurantPage = restaurantRepository.findAllByOrderByCreatedAtDesc(pageable);
+		// キーワードに一致する店舗がなければ、入力ミスや表記ゆれを許容して名前の近い店舗を表示する
+		boolean similar = false;
+		if (restaurantPage.getContent().isEmpty() && !restaurantPage.hasPrevious() && keyword != null && !keyword.isBlank()) {
+			RestaurantKeysetPage similarPage = restaurantListingService.findSimilarlyNamedRestaurants(condition, pageable.getPageSize());
+			if (!similarPage.getContent().isEmpty()) {
+				restaurantPage = similarPage;
+				similar = true;
 			}
 		}
 		
 		List<Category> categories = categoryRepository.findAll();
+		List<Integer> optionPrices = generatePriceList(PRICE_MIN, PRICE_MAX, PRICE_UNIT);
 		
 		model.addAttribute("restaurantPage", restaurantPage);
+		model.addAttribute("restaurantCards", restaurantCardRenderer.renderHorizontalCards(restaurantPage, request, response));
+		model.addAttribute("similar", similar);
+		model.addAttribute("facets", similar ? null : restaurantListingService.findFacets(condition, keywordMatch, optionPrices));
 		model.addAttribute("keyword", keyword);
-		model.addAttribute("categoryId", categoryId);
+		model.addAttribute("categoryIds", categoryIds);
+		model.addAttribute("minPrice", minPrice);
 		model.addAttribute("price", price);
+		model.addAttribute("weekday", weekday);
+		model.addAttribute("time", time);
+		model.addAttribute("openNow", openNow);
 		model.addAttribute("order", order);
 		model.addAttribute("categories", categories);
-		model.addAttribute("optionPrices", generatePriceList(PRICE_MIN, PRICE_MAX, PRICE_UNIT));
+		model.addAttribute("weekdays", regularHolidayRepository.findByDayIndexNotNullOrderByIdAsc());
+		model.addAttribute("optionPrices", optionPrices);
+		model.addAttribute("optionTimes", generateTimeList(TIME_UNIT));
 		
 		return "restaurants/index";
 	}
 	
+	// 検索キーワードの入力候補（キー入力のたびに呼ばれるため、メモリ上のトライ木のみを参照する）
+	@GetMapping("/suggest")
+	@ResponseBody
+	public List<Suggestion> suggest(@RequestParam(name = "q", required = false) String q) {
+		if (q == null || q.isBlank()) {
+			return new ArrayList<>();
+		}
+		
+		return autocompleteIndex.suggest(q, SUGGESTION_LIMIT);
+	}
+	
 	@GetMapping("/{id}")
-    public String show(@PathVariable(name = "id") Integer id, Model model, @AuthenticationPrincipal UserDetailsImpl userDetailsImpl) {
+    public String show(@PathVariable(name = "id") Integer id, Model model, @AuthenticationPrincipal UserDetailsImpl userDetailsImpl, ServletWebRequest webRequest) {
         Restaurant restaurant = restaurantRepository.getReferenceById(id);
-        List<RegularHolidayRestaurant> regularHolidayRestaurants = regularHolidayRestaurantRepository.findByRestaurantOrderByRegularHolidayIdAsc(restaurant);
-        List<CategoryRestaurant> categoryRestaurants = categoryRestaurantRepository.findByRestaurantOrderByIdAsc(restaurant); 
         Favorite favorite = null;
-        boolean hasFavorite = false;
         
         if (userDetailsImpl != null) {
-        	User user = userDetailsImpl.getUser();
-        	hasFavorite = favoriteService.hasFavorite(restaurant, user);
-        	if (hasFavorite) {
-        		favorite = favoriteRepository.findByRestaurantAndUser(restaurant, user);
+        	favorite = favoriteRepository.findByRestaurantAndUser(restaurant, userDetailsImpl.getUser());
+        }
+        
+        boolean hasFavorite = favorite != null;
+        
+        // お気に入りの共起から事前に求めたおすすめの店舗と、カテゴリ・予算・定休日から事前に求めた似ている店舗（おすすめの店舗と重複するものは除く）
+        List<Integer> recommendedRestaurantIds = coFavoriteRecommender.findRecommendedRestaurantIds(id);
+        List<Integer> similarRestaurantIds = similarRestaurantRecommender.findSimilarRestaurantIds(id);
+        similarRestaurantIds.removeAll(recommendedRestaurantIds);
+        
+        // 表示する店舗の更新日時とお気に入りの状態が前回から変わっていなければ、関連するデータを読み込まずに304を返す
+        List<Integer> pageRestaurantIds = new ArrayList<>();
+        pageRestaurantIds.add(id);
+        pageRestaurantIds.addAll(recommendedRestaurantIds);
+        pageRestaurantIds.addAll(similarRestaurantIds);
+        Timestamp updatedAt = restaurantRepository.findMaxUpdatedAtByIdIn(pageRestaurantIds);
+        
+        if (updatedAt != null) {
+        	long lastModified = Math.max(updatedAt.getTime(), siteVersion.getLastModified());
+        	if (ConditionalGet.isNotModified(webRequest, userDetailsImpl, lastModified, id, recommendedRestaurantIds, similarRestaurantIds,
+        			                         hasFavorite ? favorite.getId() : "-")) {
+        		return null;
         	}
         }
+        
+        List<RegularHolidayRestaurant> regularHolidayRestaurants = regularHolidayRestaurantRepository.findByRestaurantOrderByRegularHolidayIdAsc(restaurant);
+        List<CategoryRestaurant> categoryRestaurants = categoryRestaurantRepository.findByRestaurantOrderByIdAsc(restaurant); 
+        
+        // カードに表示する列とカテゴリだけを、求めた順にまとめて取得する（店舗ごとにカテゴリを読み込まない）
+        RestaurantKeysetPage recommendedRestaurants = restaurantListingService.findRestaurantsByIds(recommendedRestaurantIds);
+        RestaurantKeysetPage similarRestaurants = restaurantListingService.findRestaurantsByIds(similarRestaurantIds);
           
         model.addAttribute("restaurant", restaurant);
         model.addAttribute("regularHolidayRestaurants", regularHolidayRestaurants);
         model.addAttribute("categoryRestaurants", categoryRestaurants);
         model.addAttribute("favorite", favorite);
         model.addAttribute("hasFavorite", hasFavorite);
+        model.addAttribute("recommendedRestaurants", recommendedRestaurants);
+        model.addAttribute("similarRestaurants", similarRestaurants);
         
         return "restaurants/show";
 	}
         
 	
+	 private List<LocalTime> generateTimeList(Integer unit) {
+	        List<LocalTime> times = new ArrayList<>();
+	        for (int minutes = 0; minutes < 24 * 60; minutes += unit) {
+	            times.add(LocalTime.of(minutes / 60, minutes % 60));
+	        }
+	        return times;
+	    }
+	 
 	 private List<Integer> generatePriceList(Integer min, Integer max, Integer unit) {
 	        List<Integer> prices = new ArrayList<>();
 	        for (int i = 0; i <= (max - min) / unit; i++) {
@@ -23,6 +23,7 @@ import com.example.nagoyameshi.form.ReviewEditForm;
 import com.example.nagoyameshi.form.ReviewRegisterForm;
 import com.example.nagoyameshi.repository.RestaurantRepository;
 import com.example.nagoyameshi.repository.ReviewRepository;
+import com.example.nagoyameshi.repository.ReviewSummary;
 import com.example.nagoyameshi.repository.UserRepository;
 import com.example.nagoyameshi.security.UserDetailsImpl;
 import com.example.nagoyameshi.service.ReviewService;
@@ -48,13 +49,13 @@ public class ReviewController {
 			            @AuthenticationPrincipal UserDetailsImpl userDetailsImpl,
 			            @PageableDefault(page = 0, size = 10, sort = "id", direction = Direction.ASC) Pageable pageable) {
 		
-		Page<Review> reviewPage = null;
+		Page<ReviewSummary> reviewPage = null;
 		User user = userRepository.getReferenceById(userDetailsImpl.getUser().getId());
 		String roleName = user.getRole().getName();
 		Restaurant restaurant = restaurantRepository.getReferenceById(restaurantId);
 		
 		if (roleName.equals("ROLE_FREE_MEMBER")) {
-			reviewPage = reviewRepository.findByRestaurantOrderByCreatedAtDesc(restaurant, pageable);
+			reviewPage = reviewRepository.findSummariesByRestaurant(restaurant, pageable);
 		}
 		
 		boolean hasPostedReview = reviewService.hasUserAlreadyReviewed(restaurant, user);
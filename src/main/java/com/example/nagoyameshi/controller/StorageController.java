@@ -0,0 +1,173 @@
+package com.example.nagoyameshi.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.example.nagoyameshi.storage.ImageStore;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// 店舗画像（/storage/**）の配信
+// ファイルの内容はTomcatのsendfile（使えない場合はFileChannel.transferTo）でアプリケーションのメモリを経由せずに送る
+// 条件付きリクエスト（304）と1つの範囲のRangeリクエスト（206）に対応し、内容から決めたファイル名の画像はimmutableとしてキャッシュさせる
+// Spring Securityのフィルタを通さない（WebSecurityConfig）ため、セキュリティ関連のヘッダーはここで付ける
+@Controller
+@RequestMapping("/storage")
+public class StorageController {
+	// これより小さい応答はsendfileを使わずに送る（TomcatのDefaultServletと同じ48KB。小さいファイルではsendfileの準備の方が重い）
+	private static final long SENDFILE_THRESHOLD = 48 * 1024;
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+	// 配信するファイル名（ディレクトリの区切りや先頭のドットを含まないもの）
+	private static final Pattern NAME = Pattern.compile("^[A-Za-z0-9_-][A-Za-z0-9._-]*$");
+	private static final CacheControl IMMUTABLE_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+	private static final CacheControl DEFAULT_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic();
+
+	private final ImageStore imageStore;
+
+	public StorageController(ImageStore imageStore) {
+		this.imageStore = imageStore;
+	}
+
+	@GetMapping("/{name}")
+	public void show(@PathVariable(name = "name") String name, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		Resource resource = NAME.matcher(name).matches() ? imageStore.load(name) : null;
+		if (resource == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		long length = resource.contentLength();
+		long lastModified = resource.lastModified();
+		boolean immutable = imageStore.isImmutable(name);
+		// 内容から決めたファイル名は、名前が同じなら内容も同じため、そのままETagにする
+		String etag = "\"" + (immutable ? name : Long.toHexString(length) + "-" + Long.toHexString(lastModified)) + "\"";
+
+		response.setHeader(HttpHeaders.CACHE_CONTROL, (immutable ? IMMUTABLE_CACHE_CONTROL : DEFAULT_CACHE_CONTROL).getHeaderValue());
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		response.setHeader("X-Content-Type-Options", "nosniff");
+
+		if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+			return;
+		}
+
+		response.setContentType(MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+		// 送る範囲（両端を含む）。Rangeの書式が正しくない場合や複数の範囲が指定された場合は全体を送る
+		long start = 0;
+		long end = length - 1;
+		List<HttpRange> ranges = rangesOf(request, etag, lastModified);
+
+		if (ranges.size() == 1 && length > 0) {
+			HttpRange range = ranges.get(0);
+			start = range.getRangeStart(length);
+			end = range.getRangeEnd(length);
+
+			// 開始位置が画像の末尾を超える範囲には応えられない
+			if (start >= length || start > end) {
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+				response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+		}
+
+		long count = end - start + 1;
+		response.setContentLengthLong(count);
+
+		if ("HEAD".equals(request.getMethod()) || count == 0) {
+			return;
+		}
+
+		if (!resource.isFile()) {
+			// jarに含まれる初期データの画像など
+			try (InputStream inputStream = resource.getInputStream()) {
+				StreamUtils.copyRange(inputStream, response.getOutputStream(), start, end);
+			}
+			return;
+		}
+
+		Path file = resource.getFile().toPath();
+
+		// Tomcatにファイルと範囲を渡し、このメソッドから戻った後にsendfileで送らせる
+		if (count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+			request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+			request.setAttribute(SENDFILE_END_ATTRIBUTE, end + 1);
+			return;
+		}
+
+		try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+			WritableByteChannel outputChannel = Channels.newChannel(response.getOutputStream());
+			long position = start;
+
+			// transferToは指定したバイト数より少なく送ることがあるため、送り終わるまで繰り返す
+			while (position <= end) {
+				long transferred = fileChannel.transferTo(position, end + 1 - position, outputChannel);
+				if (transferred <= 0) {
+					break;
+				}
+				position += transferred;
+			}
+		}
+	}
+
+	// If-Rangeが現在の画像と一致しない場合は、Rangeを無視して全体を送る
+	private static List<HttpRange> rangesOf(HttpServletRequest request, String etag, long lastModified) {
+		String range = request.getHeader(HttpHeaders.RANGE);
+		if (range == null || !matchesIfRange(request.getHeader(HttpHeaders.IF_RANGE), etag, lastModified)) {
+			return List.of();
+		}
+
+		try {
+			return HttpRange.parseRanges(range);
+		} catch (IllegalArgumentException e) {
+			return List.of();
+		}
+	}
+
+	private static boolean matchesIfRange(String ifRange, String etag, long lastModified) {
+		if (ifRange == null) {
+			return true;
+		}
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			return ifRange.equals(etag);
+		}
+
+		try {
+			return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond() == lastModified / 1000;
+		} catch (DateTimeParseException e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.example.nagoyameshi.controller;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.example.nagoyameshi.entity.Term;
+import com.example.nagoyameshi.repository.TermRepository;
+import com.example.nagoyameshi.security.UserDetailsImpl;
+import com.example.nagoyameshi.service.SiteVersion;
+
+@Controller
+@RequestMapping("/terms")
+public class TermController {
+	private final TermRepository termRepository;
+	private final SiteVersion siteVersion;
+	
+	public TermController(TermRepository termRepository, SiteVersion siteVersion) {
+		this.termRepository = termRepository;
+		this.siteVersion = siteVersion;
+	}
+	
+	@GetMapping
+	public String index(@AuthenticationPrincipal UserDetailsImpl userDetailsImpl, Model model, ServletWebRequest webRequest) {
+		Term term = termRepository.findFirstByOrderByIdAsc();
+		
+		// 利用規約が更新されていなければ描画せずに304を返す
+		long lastModified = Math.max(term.getUpdatedAt().getTime(), siteVersion.getLastModified());
+		if (ConditionalGet.isNotModified(webRequest, userDetailsImpl, lastModified, term.getId())) {
+			return null;
+		}
+		
+		model.addAttribute("term", term);
+		
+		return "terms/index";
+	}
+
+}
@@ -4,15 +4,22 @@ import java.sql.Timestamp;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Table;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Entity
+// 店舗詳細（会員・管理者）：カテゴリ名を表示するためカテゴリを一緒に取得する
+@NamedEntityGraph(name = "CategoryRestaurant.withCategory", attributeNodes = @NamedAttributeNode("category"))
 @Table(name = "category_restaurant")
 @Data
 public class CategoryRestaurant {
@@ -21,12 +28,16 @@ public class CategoryRestaurant {
 	@Column(name = "id")
 	private Integer id;
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "restaurant_id")
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
 	private Restaurant restaurant;
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "category_id")
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
 	private Category category;
 	
 	@Column(name = "created_at", insertable = false, updatable = false)
@@ -1,11 +1,14 @@
 package com.example.nagoyameshi.entity;
 
+import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.example.nagoyameshi.storage.ImageVariant;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -15,6 +18,8 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Entity
 @Table(name = "restaurants")
@@ -31,6 +36,15 @@ public class Restaurant {
 	@Column(name = "image")
 	private String image;
 	
+	// 作成済みのサイズ違いの幅（カンマ区切り、作成前はnull）
+	// RestaurantImagePipelineが画像のファイル名を条件にSQLで更新するため、エンティティからは書き込まない
+	@Column(name = "image_widths", insertable = false, updatable = false)
+	private String imageWidths;
+	
+	// 画像の読み込みが終わるまでカードに表示する縮小画像（data URI、作成前はnull）
+	@Column(name = "image_placeholder", insertable = false, updatable = false)
+	private String imagePlaceholder;
+	
 	@Column(name = "description")
 	private String description;
 	
@@ -55,6 +69,37 @@ public class Restaurant {
 	@Column(name = "seating_capacity")
 	private Integer seatingCapacity;
 	
+	// レビューの集計値（ReviewServiceがレビューの投稿・編集・削除と同じトランザクションでSQLの加減算により更新する）
+	// 店舗の保存で古い値に戻さないよう、エンティティからは書き込まない
+	@Column(name = "rating_sum", insertable = false, updatable = false)
+	private Integer ratingSum;
+	
+	@Column(name = "rating_count", insertable = false, updatable = false)
+	private Integer ratingCount;
+	
+	@Column(name = "rating_average", insertable = false, updatable = false)
+	private BigDecimal ratingAverage;
+	
+	// 評価ごとのレビュー数（1～5）
+	@Column(name = "rating_1_count", insertable = false, updatable = false)
+	private Integer rating1Count;
+	
+	@Column(name = "rating_2_count", insertable = false, updatable = false)
+	private Integer rating2Count;
+	
+	@Column(name = "rating_3_count", insertable = false, updatable = false)
+	private Integer rating3Count;
+	
+	@Column(name = "rating_4_count", insertable = false, updatable = false)
+	private Integer rating4Count;
+	
+	@Column(name = "rating_5_count", insertable = false, updatable = false)
+	private Integer rating5Count;
+	
+	// お気に入り数（FavoriteCounterが数秒ごとにまとめて加算する）
+	@Column(name = "favorite_count", insertable = false, updatable = false)
+	private Integer favoriteCount;
+	
 	@Column(name = "created_at", insertable = false, updatable = false)
     private Timestamp createdAt;
 	
@@ -62,6 +107,8 @@ public class Restaurant {
     private Timestamp updatedAt; 
 	
 	@OneToMany(mappedBy = "restaurant")
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
     private List<CategoryRestaurant> categoryRestaurants;
 	
 	@Transient // このアノテーションにより、Hibernateがこのフィールドをデータベースカラムとして扱わないようになる  
@@ -72,5 +119,35 @@ public class Restaurant {
                                       .collect(Collectors.toList());
         }
         return new ArrayList<>();
-    }    
+    }
+	
+	// 指定した評価のレビュー数
+	public int getRatingCountOf(int score) {
+		switch (score) {
+		case 1:
+			return rating1Count;
+		case 2:
+			return rating2Count;
+		case 3:
+			return rating3Count;
+		case 4:
+			return rating4Count;
+		default:
+			return rating5Count;
+		}
+	}
+	
+	// img要素のsrcset属性の値（storagePathは/storage/のURL）
+	public String getImageSrcset(String storagePath) {
+		return ImageVariant.srcsetOf(storagePath, image, imageWidths);
+	}
+	
+	// 評価の平均を0.5刻みに丸めたもの（星評価のdata-rateに使う）
+	public String getRoundedAverageScore() {
+		return String.format("%.1f", Math.round(ratingAverage.doubleValue() * 2) / 2.0);
+	}
+	
+	public String getFormattedAverageScore() {
+		return String.format("%.1f", ratingAverage);
+	}
 }
@@ -5,15 +5,22 @@ import java.time.LocalDate;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Table;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Entity
+// ログイン：権限を判定するためロールを一緒に取得する
+@NamedEntityGraph(name = "User.withRole", attributeNodes = @NamedAttributeNode("role"))
 @Table(name = "users")
 @Data
 public class User {
@@ -49,8 +56,10 @@ public class User {
 	@Column(name = "password")
 	private String password;
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "role_id")
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
 	private Role role;
 	
 	@Column(name = "enabled")
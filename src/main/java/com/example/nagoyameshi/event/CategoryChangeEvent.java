@@ -0,0 +1,19 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import lombok.Getter;
+
+@Getter
+public class CategoryChangeEvent extends ApplicationEvent {
+	private Integer categoryId;
+	private boolean deleted;
+	
+	public CategoryChangeEvent(Object source, Integer categoryId, boolean deleted) {
+		super(source);
+		
+		this.categoryId = categoryId;
+		this.deleted = deleted;
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CategoryChangeEventPublisher {
+	private final ApplicationEventPublisher applicationEventPublisher;
+	
+	public CategoryChangeEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+	
+	// カテゴリの登録・更新を通知する
+	public void publishCategoryChangeEvent(Integer categoryId) {
+		applicationEventPublisher.publishEvent(new CategoryChangeEvent(this, categoryId, false));
+	}
+	
+	// カテゴリの削除を通知する
+	public void publishCategoryDeleteEvent(Integer categoryId) {
+		applicationEventPublisher.publishEvent(new CategoryChangeEvent(this, categoryId, true));
+	}
+
+}
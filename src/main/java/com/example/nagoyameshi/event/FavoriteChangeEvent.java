@@ -0,0 +1,20 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import lombok.Getter;
+
+@Getter
+public class FavoriteChangeEvent extends ApplicationEvent {
+	private Integer restaurantId;
+	// 追加は1、削除は-1
+	private int delta;
+	
+	public FavoriteChangeEvent(Object source, Integer restaurantId, int delta) {
+		super(source);
+		
+		this.restaurantId = restaurantId;
+		this.delta = delta;
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+public class FavoriteChangeEventPublisher {
+	private final ApplicationEventPublisher applicationEventPublisher;
+	
+	public FavoriteChangeEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+	
+	// お気に入りの追加を通知する
+	public void publishFavoriteAddEvent(Integer restaurantId) {
+		applicationEventPublisher.publishEvent(new FavoriteChangeEvent(this, restaurantId, 1));
+	}
+	
+	// お気に入りの削除を通知する
+	public void publishFavoriteRemoveEvent(Integer restaurantId) {
+		applicationEventPublisher.publishEvent(new FavoriteChangeEvent(this, restaurantId, -1));
+	}
+
+}
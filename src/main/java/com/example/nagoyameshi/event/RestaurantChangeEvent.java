@@ -0,0 +1,19 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import lombok.Getter;
+
+@Getter
+public class RestaurantChangeEvent extends ApplicationEvent {
+	private Integer restaurantId;
+	private boolean deleted;
+	
+	public RestaurantChangeEvent(Object source, Integer restaurantId, boolean deleted) {
+		super(source);
+		
+		this.restaurantId = restaurantId;
+		this.deleted = deleted;
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RestaurantChangeEventPublisher {
+	private final ApplicationEventPublisher applicationEventPublisher;
+	
+	public RestaurantChangeEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+	
+	// 店舗の登録・更新を通知する
+	public void publishRestaurantChangeEvent(Integer restaurantId) {
+		applicationEventPublisher.publishEvent(new RestaurantChangeEvent(this, restaurantId, false));
+	}
+	
+	// 店舗の削除を通知する
+	public void publishRestaurantDeleteEvent(Integer restaurantId) {
+		applicationEventPublisher.publishEvent(new RestaurantChangeEvent(this, restaurantId, true));
+	}
+
+}
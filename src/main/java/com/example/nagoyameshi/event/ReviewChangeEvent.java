@@ -0,0 +1,18 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import lombok.Getter;
+
+@Getter
+public class ReviewChangeEvent extends ApplicationEvent {
+	// レビューが投稿・更新・削除された店舗のID
+	private Integer restaurantId;
+	
+	public ReviewChangeEvent(Object source, Integer restaurantId) {
+		super(source);
+		
+		this.restaurantId = restaurantId;
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.example.nagoyameshi.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ReviewChangeEventPublisher {
+	private final ApplicationEventPublisher applicationEventPublisher;
+	
+	public ReviewChangeEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+	
+	// レビューの投稿・更新・削除を通知する
+	public void publishReviewChangeEvent(Integer restaurantId) {
+		applicationEventPublisher.publishEvent(new ReviewChangeEvent(this, restaurantId));
+	}
+
+}
@@ -1,13 +1,24 @@
 package com.example.nagoyameshi.repository;
 
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.nagoyameshi.entity.Category;
 
+import jakarta.persistence.QueryHint;
+
 public interface CategoryRepository extends JpaRepository<Category, Integer>{
 	 public Page<Category> findByNameLike(String nameKeyword, Pageable pageable);
+	 
+	 // 店舗一覧・店舗の登録や編集のたびに呼ばれるため、クエリキャッシュに載せる
+	 @Override
+	 @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	 public List<Category> findAll();
 
 
 }
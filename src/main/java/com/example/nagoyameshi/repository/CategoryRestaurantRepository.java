@@ -1,7 +1,9 @@
 package com.example.nagoyameshi.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,11 +13,20 @@ import com.example.nagoyameshi.entity.CategoryRestaurant;
 import com.example.nagoyameshi.entity.Restaurant;
 
 public interface CategoryRestaurantRepository extends JpaRepository<CategoryRestaurant, Integer>{
+	@EntityGraph("CategoryRestaurant.withCategory")
 	public List<CategoryRestaurant> findByRestaurantOrderByIdAsc(Restaurant restaurant);
 	
 	@Query("SELECT cr.category.id FROM CategoryRestaurant cr WHERE cr.restaurant = :restaurant ORDER BY cr.id ASC")
 	public List<Integer> findCategoryIdsByRestaurantOrderByIdAsc(@Param("restaurant") Restaurant restaurant);
 	
+	// 店舗一覧の1ページ分のカテゴリをまとめて取得する（[店舗ID, カテゴリ]の組）
+	@Query("SELECT cr.restaurant.id, c FROM CategoryRestaurant cr JOIN cr.category c WHERE cr.restaurant.id IN :restaurantIds ORDER BY cr.id ASC")
+	public List<Object[]> findCategoriesByRestaurantIdIn(@Param("restaurantIds") Collection<Integer> restaurantIds);
+	
+	// 全ての[店舗ID, カテゴリID]の組（店舗カタログの作成用）
+	@Query("SELECT cr.restaurant.id, cr.category.id FROM CategoryRestaurant cr")
+	public List<Object[]> findAllRestaurantIdAndCategoryId();
+	
 	public void deleteByRestaurant(Restaurant restaurant);
 	public void deleteByCategory(Category category);
 
@@ -1,10 +1,15 @@
 package com.example.nagoyameshi.repository;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.nagoyameshi.entity.Company;
 
+import jakarta.persistence.QueryHint;
+
 public interface CompanyRepository extends JpaRepository<Company, Integer> {
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	public Company findFirstByOrderByIdAsc();
 
 }
@@ -3,13 +3,19 @@ package com.example.nagoyameshi.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.nagoyameshi.entity.Favorite;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.User;
 
 public interface FavoriteRepository extends JpaRepository<Favorite, Integer>{
-	public Page<Favorite> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
+	@Query(value = "SELECT f.id AS id, r.id AS restaurantId, r.name AS restaurantName, r.postalCode AS restaurantPostalCode, r.address AS restaurantAddress "
+			     + "FROM Favorite f JOIN f.restaurant r WHERE f.user = :user ORDER BY f.createdAt DESC",
+		   countQuery = "SELECT COUNT(f) FROM Favorite f WHERE f.user = :user")
+	public Page<FavoriteSummary> findSummariesByUser(@Param("user") User user, Pageable pageable);
+	
 	public Favorite findByRestaurantAndUser(Restaurant restaurant, User user);
 	public void deleteByRestaurant(Restaurant restaurant);
 
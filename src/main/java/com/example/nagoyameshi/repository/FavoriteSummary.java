@@ -0,0 +1,11 @@
+package com.example.nagoyameshi.repository;
+
+// お気に入り一覧に表示する列（店舗は名前と所在地のみ）
+public interface FavoriteSummary {
+	public Integer getId();
+	public Integer getRestaurantId();
+	public String getRestaurantName();
+	public String getRestaurantPostalCode();
+	public String getRestaurantAddress();
+
+}
@@ -1,9 +1,21 @@
 package com.example.nagoyameshi.repository;
 
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.nagoyameshi.entity.RegularHoliday;
 
-public interface RegularHolidayRepository extends JpaRepository<RegularHoliday, Integer>{
+import jakarta.persistence.QueryHint;
 
+public interface RegularHolidayRepository extends JpaRepository<RegularHoliday, Integer>{
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	public List<RegularHoliday> findByDayIndexNotNullOrderByIdAsc();
+	
+	// 店舗の登録や編集のたびに呼ばれるため、クエリキャッシュに載せる
+	@Override
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	public List<RegularHoliday> findAll();
 }
@@ -2,6 +2,7 @@ package com.example.nagoyameshi.repository;
 
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,11 +11,16 @@ import com.example.nagoyameshi.entity.RegularHolidayRestaurant;
 import com.example.nagoyameshi.entity.Restaurant;
 
 public interface RegularHolidayRestaurantRepository extends JpaRepository<RegularHolidayRestaurant, Integer>{
+	 @EntityGraph("RegularHolidayRestaurant.withRegularHoliday")
 	 public List<RegularHolidayRestaurant> findByRestaurantOrderByRegularHolidayIdAsc(Restaurant restaurant);
 	 
 	 @Query("SELECT rhr.regularHoliday.id FROM RegularHolidayRestaurant rhr WHERE rhr.restaurant = :restaurant ORDER BY rhr.id ASC")
 	 public List<Integer> findRegularHolidayIdsByRestaurantOrderByRegularHolidayIdAsc(@Param("restaurant") Restaurant restaurant);
 	 
+	 // 全ての[店舗ID, 定休日ID]の組（店舗カタログの作成用）
+	 @Query("SELECT rhr.restaurant.id, rhr.regularHoliday.id FROM RegularHolidayRestaurant rhr")
+	 public List<Object[]> findAllRestaurantIdAndRegularHolidayId();
+	 
 	 public void deleteByRestaurant(Restaurant restaurant);
 
 }
@@ -0,0 +1,11 @@
+package com.example.nagoyameshi.repository;
+
+// 管理者用の店舗一覧に表示する列
+public interface RestaurantAdminSummary {
+	public Integer getId();
+	public String getName();
+	public String getPostalCode();
+	public String getAddress();
+	public Integer getSeatingCapacity();
+
+}
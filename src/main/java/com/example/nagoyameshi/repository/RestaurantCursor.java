@@ -0,0 +1,38 @@
+package com.example.nagoyameshi.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// キーセットページネーションの位置（ページ番号、並び替え列の値、店舗ID）
+// URLでは「ページ番号_並び替え列の値_店舗ID」の形式で受け渡す
+@Getter
+@AllArgsConstructor
+public class RestaurantCursor {
+	private int page;
+	private long sortValue;
+	private int restaurantId;
+	
+	// 不正な形式の場合はnullを返す
+	public static RestaurantCursor parse(String token) {
+		if (token == null || token.isEmpty()) {
+			return null;
+		}
+		
+		String[] values = token.split("_");
+		if (values.length != 3) {
+			return null;
+		}
+		
+		try {
+			return new RestaurantCursor(Integer.parseInt(values[0]), Long.parseLong(values[1]), Integer.parseInt(values[2]));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return page + "_" + sortValue + "_" + restaurantId;
+	}
+
+}
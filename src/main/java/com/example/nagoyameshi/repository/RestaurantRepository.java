@@ -1,43 +1,66 @@
 package com.example.nagoyameshi.repository;
 
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.example.nagoyameshi.entity.Restaurant;
 
-public interface RestaurantRepository extends JpaRepository<Restaurant, Integer> {
-	 public Page<Restaurant> findByNameLike(String nameKeyword, Pageable pageable);
+// 店舗一覧の絞り込み・並び替えはRestaurantSpecificationsとfindByKeyset()で組み立てる
+public interface RestaurantRepository extends JpaRepository<Restaurant, Integer>, RestaurantRepositoryCustom {
+	 @Query(value = "SELECT r.id AS id, r.name AS name, r.postalCode AS postalCode, r.address AS address, r.seatingCapacity AS seatingCapacity FROM Restaurant r",
+			countQuery = "SELECT COUNT(r) FROM Restaurant r")
+	 public Page<RestaurantAdminSummary> findAllSummaries(Pageable pageable);
 	 
-	 public Page<Restaurant> findByNameLikeOrAddressLikeOrderByCreatedAtDesc(String nameKeyword, String addressKeyword, Pageable pageable);
-	 public Page<Restaurant> findByNameLikeOrAddressLikeOrderByLowestPriceAsc(String nameKeyword, String addressKeyword, Pageable pageable);
-	 public Page<Restaurant> findByNameLikeOrAddressLikeOrderByHighestPriceDesc(String nameKeyword, String addressKeyword, Pageable pageable);
-
-	 @Query("SELECT r FROM Restaurant r JOIN r.categoryRestaurants cr WHERE cr.category.id = :categoryId ORDER BY r.createdAt DESC")
-	 public Page<Restaurant> findByIdOrderByCreatedAtDesc(@Param("categoryId") Integer categoryId, Pageable pageable);
+	 @Query(value = "SELECT r.id AS id, r.name AS name, r.postalCode AS postalCode, r.address AS address, r.seatingCapacity AS seatingCapacity FROM Restaurant r WHERE r.name LIKE :nameKeyword",
+			countQuery = "SELECT COUNT(r) FROM Restaurant r WHERE r.name LIKE :nameKeyword")
+	 public Page<RestaurantAdminSummary> findSummariesByNameLike(@Param("nameKeyword") String nameKeyword, Pageable pageable);
 	 
-	 @Query("SELECT r FROM Restaurant r JOIN r.categoryRestaurants cr WHERE cr.category.id = :categoryId ORDER BY r.lowestPrice ASC")
-	 public Page<Restaurant> findByIdOrderByLowestPriceAsc(@Param("categoryId") Integer categoryId, Pageable pageable);
+	 public List<Restaurant> findTop6ByOrderByCreatedAtDesc();
 	 
-	 @Query("SELECT r FROM Restaurant r JOIN r.categoryRestaurants cr WHERE cr.category.id = :categoryId ORDER BY r.highestPrice DESC")
-	 public Page<Restaurant> findByIdOrderByHighestPriceDesc(@Param("categoryId") Integer categoryId, Pageable pageable);
-
-
-	 public Page<Restaurant> findByLowestPriceLessThanEqualOrderByCreatedAtDesc(Integer price, Pageable pageable);
-	 public Page<Restaurant> findByLowestPriceLessThanEqualOrderByLowestPriceAsc(Integer price, Pageable pageable);
-	 public Page<Restaurant> findByLowestPriceLessThanEqualOrderByHighestPriceDesc(Integer price, Pageable pageable);
-
+	 public List<Restaurant> findTop6ByOrderByFavoriteCountDescIdAsc();
 	 
-	 public Page<Restaurant> findAllByOrderByCreatedAtDesc(Pageable pageable);
-     public Page<Restaurant> findAllByOrderByLowestPriceAsc(Pageable pageable);
-     public Page<Restaurant> findAllByOrderByHighestPriceDesc(Pageable pageable);
-
-
+	 // 店舗詳細ページに表示する店舗（関連する店舗を含む）のうち最も新しい更新日時（条件付きGETの判定用、エンティティは読み込まない）
+	 @Query("SELECT MAX(r.updatedAt) FROM Restaurant r WHERE r.id IN :restaurantIds")
+	 public Timestamp findMaxUpdatedAtByIdIn(@Param("restaurantIds") Collection<Integer> restaurantIds);
 	 
-	 public List<Restaurant> findTop6ByOrderByCreatedAtDesc();
+	 // 店舗が参照している画像のファイル名（参照されていない画像の削除用）
+	 @Query("SELECT DISTINCT r.image FROM Restaurant r WHERE r.image IS NOT NULL")
+	 public List<String> findDistinctImages();
+	 
+	 // 画像を使っている店舗のID（サイズ違いを記録した店舗の変更の通知用）
+	 @Query("SELECT r.id FROM Restaurant r WHERE r.image = :image")
+	 public List<Integer> findIdsByImage(@Param("image") String image);
+	 
+	 // 画像のサイズ違いと縮小画像を作成したら、その画像を使う全ての店舗に記録する（同じ画像は複数の店舗で共有される）
+	 @Modifying
+	 @Query("UPDATE Restaurant r SET r.imageWidths = :imageWidths, r.imagePlaceholder = :imagePlaceholder WHERE r.image = :image")
+	 public int updateImageVariantsByImage(@Param("image") String image, @Param("imageWidths") String imageWidths, @Param("imagePlaceholder") String imagePlaceholder);
+	 
+	 // 画像を差し替えた店舗のサイズ違い・縮小画像の記録を消す（新しい画像のものを作成するまでは元の画像だけを表示する）
+	 @Modifying
+	 @Query("UPDATE Restaurant r SET r.imageWidths = NULL, r.imagePlaceholder = NULL WHERE r.id = :restaurantId")
+	 public int clearImageVariants(@Param("restaurantId") Integer restaurantId);
+	 
+	 // レビューの評価を店舗の集計値に加える（delta = 1）、または取り除く（delta = -1）
+	 // 読み込まずに1回のUPDATEで加減算するため、同時に投稿されても集計値がずれない
+	 // MySQLは左から順に代入するので、平均は更新前の値から最初に求める
+	 @Modifying
+	 @Query("UPDATE Restaurant r SET r.ratingAverage = CASE WHEN r.ratingCount + :delta > 0 THEN (r.ratingSum + :score * :delta) * 1.0 / (r.ratingCount + :delta) ELSE 0 END, "
+	      + "r.ratingSum = r.ratingSum + :score * :delta, r.ratingCount = r.ratingCount + :delta, "
+	      + "r.rating1Count = r.rating1Count + CASE WHEN :score = 1 THEN :delta ELSE 0 END, "
+	      + "r.rating2Count = r.rating2Count + CASE WHEN :score = 2 THEN :delta ELSE 0 END, "
+	      + "r.rating3Count = r.rating3Count + CASE WHEN :score = 3 THEN :delta ELSE 0 END, "
+	      + "r.rating4Count = r.rating4Count + CASE WHEN :score = 4 THEN :delta ELSE 0 END, "
+	      + "r.rating5Count = r.rating5Count + CASE WHEN :score = 5 THEN :delta ELSE 0 END "
+	      + "WHERE r.id = :restaurantId")
+	 public int addRating(@Param("restaurantId") Integer restaurantId, @Param("score") int score, @Param("delta") int delta);
 
 }
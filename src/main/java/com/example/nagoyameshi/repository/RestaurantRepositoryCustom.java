@@ -0,0 +1,17 @@
+package com.example.nagoyameshi.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.nagoyameshi.entity.Restaurant;
+
+public interface RestaurantRepositoryCustom {
+	// cursorより後ろ（backwardがtrueの場合は前）の店舗をoffset件読み飛ばしてlimit件取得する
+	// backwardがtrueの場合は逆順で返す
+	public List<RestaurantSummary> findByKeyset(Specification<Restaurant> specification, RestaurantSortOrder sortOrder,
+			                                    RestaurantCursor cursor, boolean backward, int offset, int limit);
+	
+	public long countBySpecification(Specification<Restaurant> specification);
+
+}
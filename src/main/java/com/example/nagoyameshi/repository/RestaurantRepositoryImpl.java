@@ -0,0 +1,138 @@
+package com.example.nagoyameshi.repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.nagoyameshi.entity.Restaurant;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class RestaurantRepositoryImpl implements RestaurantRepositoryCustom {
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Override
+	public List<RestaurantSummary> findByKeyset(Specification<Restaurant> specification, RestaurantSortOrder sortOrder,
+			                                    RestaurantCursor cursor, boolean backward, int offset, int limit) {
+		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<RestaurantSummary> query = criteriaBuilder.createQuery(RestaurantSummary.class);
+		Root<Restaurant> root = query.from(Restaurant.class);
+		List<Predicate> predicates = new ArrayList<>();
+		
+		if (specification != null) {
+			Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+			if (predicate != null) {
+				predicates.add(predicate);
+			}
+		}
+		
+		// 後ろ向きに辿る場合は並び順を反転させる
+		boolean descending = sortOrder.isDescending() != backward;
+		
+		if (cursor != null) {
+			predicates.add(seekPredicate(criteriaBuilder, root, sortOrder, cursor, descending));
+		}
+		
+		// カードに表示する列だけを取得する
+		query.select(criteriaBuilder.construct(RestaurantSummary.class, root.get("id"), root.get("name"), root.get("image"), root.get("imageWidths"), root.get("imagePlaceholder"),
+				                               root.get("lowestPrice"), root.get("highestPrice"), root.get("postalCode"),
+				                               root.get("address"), root.get("ratingAverage"), root.get("ratingCount"), root.get("favoriteCount"),
+				                               root.get("createdAt"), root.get("updatedAt")))
+		     .where(predicates.toArray(new Predicate[0]))
+		     .orderBy(orders(criteriaBuilder, sortColumn(root, sortOrder), root.get("id"), descending));
+		
+		return entityManager.createQuery(query)
+				            .setFirstResult(offset)
+				            .setMaxResults(limit)
+				            .getResultList();
+	}
+	
+	@Override
+	public long countBySpecification(Specification<Restaurant> specification) {
+		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+		Root<Restaurant> root = query.from(Restaurant.class);
+		
+		query.select(criteriaBuilder.count(root));
+		
+		if (specification != null) {
+			Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+			if (predicate != null) {
+				query.where(predicate);
+			}
+		}
+		
+		return entityManager.createQuery(query).getSingleResult();
+	}
+	
+	private Expression<?> sortColumn(Root<Restaurant> root, RestaurantSortOrder sortOrder) {
+		switch (sortOrder) {
+		case LOWEST_PRICE_ASC:
+			return root.get("lowestPrice");
+		case HIGHEST_PRICE_DESC:
+			return root.get("highestPrice");
+		case RATING_DESC:
+			return root.get("ratingAverage");
+		case POPULAR_DESC:
+			return root.get("favoriteCount");
+		default:
+			return root.get("createdAt");
+		}
+	}
+	
+	// (並び替え列, id) の組がカーソルより後ろにある行だけに絞り込む
+	private Predicate seekPredicate(CriteriaBuilder criteriaBuilder, Root<Restaurant> root, RestaurantSortOrder sortOrder,
+			                        RestaurantCursor cursor, boolean descending) {
+		Expression<Integer> id = root.get("id");
+		
+		switch (sortOrder) {
+		case LOWEST_PRICE_ASC:
+			return seek(criteriaBuilder, root.<Integer>get("lowestPrice"), (int) cursor.getSortValue(), id, cursor.getRestaurantId(), descending);
+		case HIGHEST_PRICE_DESC:
+			return seek(criteriaBuilder, root.<Integer>get("highestPrice"), (int) cursor.getSortValue(), id, cursor.getRestaurantId(), descending);
+		case RATING_DESC:
+			return seek(criteriaBuilder, root.<BigDecimal>get("ratingAverage"), BigDecimal.valueOf(cursor.getSortValue(), 2), id, cursor.getRestaurantId(), descending);
+		case POPULAR_DESC:
+			return seek(criteriaBuilder, root.<Integer>get("favoriteCount"), (int) cursor.getSortValue(), id, cursor.getRestaurantId(), descending);
+		default:
+			return seek(criteriaBuilder, root.<Timestamp>get("createdAt"), new Timestamp(cursor.getSortValue()), id, cursor.getRestaurantId(), descending);
+		}
+	}
+	
+	private <Y extends Comparable<? super Y>> Predicate seek(CriteriaBuilder criteriaBuilder, Expression<Y> column, Y value,
+			                                               Expression<Integer> id, Integer restaurantId, boolean descending) {
+		if (descending) {
+			return criteriaBuilder.or(criteriaBuilder.lessThan(column, value),
+					                  criteriaBuilder.and(criteriaBuilder.equal(column, value), criteriaBuilder.lessThan(id, restaurantId)));
+		}
+		
+		return criteriaBuilder.or(criteriaBuilder.greaterThan(column, value),
+				                  criteriaBuilder.and(criteriaBuilder.equal(column, value), criteriaBuilder.greaterThan(id, restaurantId)));
+	}
+	
+	private List<Order> orders(CriteriaBuilder criteriaBuilder, Expression<?> column, Expression<?> id, boolean descending) {
+		List<Order> orders = new ArrayList<>();
+		
+		if (descending) {
+			orders.add(criteriaBuilder.desc(column));
+			orders.add(criteriaBuilder.desc(id));
+		} else {
+			orders.add(criteriaBuilder.asc(column));
+			orders.add(criteriaBuilder.asc(id));
+		}
+		
+		return orders;
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.example.nagoyameshi.repository;
+
+// 店舗一覧の並び替え順（キーセットページネーションのため、同じ値の場合は店舗IDで順序を決める）
+public enum RestaurantSortOrder {
+	CREATED_AT_DESC("createdAtDesc", true),
+	LOWEST_PRICE_ASC("lowestPriceAsc", false),
+	HIGHEST_PRICE_DESC("highestPriceDesc", true),
+	RATING_DESC("ratingDesc", true),
+	POPULAR_DESC("popularDesc", true);
+	
+	private final String value;
+	private final boolean descending;
+	
+	private RestaurantSortOrder(String value, boolean descending) {
+		this.value = value;
+		this.descending = descending;
+	}
+	
+	public String getValue() {
+		return value;
+	}
+	
+	public boolean isDescending() {
+		return descending;
+	}
+	
+	// 並び替え列の値をカーソル用の数値で返す
+	public long sortValueOf(RestaurantSummary restaurant) {
+		switch (this) {
+		case LOWEST_PRICE_ASC:
+			return restaurant.getLowestPrice();
+		case HIGHEST_PRICE_DESC:
+			return restaurant.getHighestPrice();
+		case RATING_DESC:
+			// 平均は小数第2位までのため、100倍して整数にする
+			return restaurant.getRatingAverage().movePointRight(2).longValueExact();
+		case POPULAR_DESC:
+			return restaurant.getFavoriteCount();
+		default:
+			return restaurant.getCreatedAt().getTime();
+		}
+	}
+	
+	// リクエストパラメータのorderから並び替え順を返す（未指定や不正な値の場合は新着順）
+	public static RestaurantSortOrder from(String order) {
+		for (RestaurantSortOrder sortOrder : values()) {
+			if (sortOrder.value.equals(order)) {
+				return sortOrder;
+			}
+		}
+		return CREATED_AT_DESC;
+	}
+
+}
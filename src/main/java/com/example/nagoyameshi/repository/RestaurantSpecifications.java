@@ -0,0 +1,98 @@
+package com.example.nagoyameshi.repository;
+
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.nagoyameshi.entity.CategoryRestaurant;
+import com.example.nagoyameshi.entity.RegularHolidayRestaurant;
+import com.example.nagoyameshi.entity.Restaurant;
+
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+// 店舗一覧の絞り込み条件（Specification.and()で組み合わせて1つのSQLにする）
+// 条件が指定されていない場合はnullを返す
+public class RestaurantSpecifications {
+	
+	private RestaurantSpecifications() {
+	}
+	
+	// いずれかのカテゴリに属する店舗
+	public static Specification<Restaurant> hasAnyCategory(List<Integer> categoryIds) {
+		if (categoryIds == null) {
+			return null;
+		}
+		
+		List<Integer> ids = categoryIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+		if (ids.isEmpty()) {
+			return null;
+		}
+		
+		return (root, query, criteriaBuilder) -> {
+			Subquery<Integer> subquery = query.subquery(Integer.class);
+			Root<CategoryRestaurant> categoryRestaurant = subquery.from(CategoryRestaurant.class);
+			subquery.select(categoryRestaurant.get("id"))
+			        .where(criteriaBuilder.equal(categoryRestaurant.get("restaurant"), root),
+			        	   categoryRestaurant.get("category").get("id").in(ids));
+			return criteriaBuilder.exists(subquery);
+		};
+	}
+	
+	// 価格帯が予算の範囲と重なる店舗（最低価格が予算の上限以下、最高価格が予算の下限以上）
+	public static Specification<Restaurant> withinBudget(Integer minPrice, Integer maxPrice) {
+		if (minPrice == null && maxPrice == null) {
+			return null;
+		}
+		
+		return (root, query, criteriaBuilder) -> {
+			if (minPrice == null) {
+				return criteriaBuilder.lessThanOrEqualTo(root.get("lowestPrice"), maxPrice);
+			} else if (maxPrice == null) {
+				return criteriaBuilder.greaterThanOrEqualTo(root.get("highestPrice"), minPrice);
+			}
+			return criteriaBuilder.and(criteriaBuilder.lessThanOrEqualTo(root.get("lowestPrice"), maxPrice),
+					                   criteriaBuilder.greaterThanOrEqualTo(root.get("highestPrice"), minPrice));
+		};
+	}
+	
+	// 指定したIDのいずれかの店舗（メモリ上で絞り込んだ店舗を一覧のSQLに渡す。件数の多いIDはRestaurantListingServiceで渡さないようにする）
+	public static Specification<Restaurant> idIn(Collection<Integer> restaurantIds) {
+		if (restaurantIds == null) {
+			return null;
+		}
+		
+		return (root, query, criteriaBuilder) -> restaurantIds.isEmpty() ? criteriaBuilder.disjunction() : root.get("id").in(restaurantIds);
+	}
+	
+	// 指定した曜日・時刻に営業している店舗（OpeningHours.isOpen()と同じく、開店時刻以降かつ閉店時刻より前）
+	// 店舗一覧では店舗カタログのビットマップで判定し、これを使うのはカタログの作成前だけ
+	public static Specification<Restaurant> openAt(int dayIndex, LocalTime time) {
+		Specification<Restaurant> openingHours = (root, query, criteriaBuilder) ->
+			criteriaBuilder.and(criteriaBuilder.lessThanOrEqualTo(root.get("openingTime"), time),
+					            criteriaBuilder.greaterThan(root.get("closingTime"), time));
+		
+		return openingHours.and(openOn(dayIndex));
+	}
+	
+	// 指定した曜日（RegularHoliday.dayIndex、0：日曜～6：土曜）が定休日ではない店舗
+	public static Specification<Restaurant> openOn(Integer dayIndex) {
+		if (dayIndex == null) {
+			return null;
+		}
+		
+		return (root, query, criteriaBuilder) -> {
+			Subquery<Integer> subquery = query.subquery(Integer.class);
+			Root<RegularHolidayRestaurant> regularHolidayRestaurant = subquery.from(RegularHolidayRestaurant.class);
+			subquery.select(regularHolidayRestaurant.get("id"))
+			        .where(criteriaBuilder.equal(regularHolidayRestaurant.get("restaurant"), root),
+			        	   criteriaBuilder.equal(regularHolidayRestaurant.get("regularHoliday").get("dayIndex"), dayIndex));
+			return criteriaBuilder.not(criteriaBuilder.exists(subquery));
+		};
+	}
+
+}
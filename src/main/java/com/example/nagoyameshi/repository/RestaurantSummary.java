@@ -0,0 +1,46 @@
+package com.example.nagoyameshi.repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import com.example.nagoyameshi.storage.ImageVariant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 店舗一覧のカードに表示する列だけを取得したもの（説明文などは取得しない）
+@Getter
+@AllArgsConstructor
+public class RestaurantSummary {
+	private final Integer id;
+	private final String name;
+	private final String image;
+	private final String imageWidths;
+	private final String imagePlaceholder;
+	private final Integer lowestPrice;
+	private final Integer highestPrice;
+	private final String postalCode;
+	private final String address;
+	private final BigDecimal ratingAverage;
+	private final Integer ratingCount;
+	private final Integer favoriteCount;
+	// キーセットページネーションのカーソルに使う
+	private final Timestamp createdAt;
+	// 描画済みのカードのキーに使う
+	private final Timestamp updatedAt;
+	
+	// img要素のsrcset属性の値（storagePathは/storage/のURL）
+	public String getImageSrcset(String storagePath) {
+		return ImageVariant.srcsetOf(storagePath, image, imageWidths);
+	}
+	
+	// 評価の平均を0.5刻みに丸めたもの（星評価のdata-rateに使う）
+	public String getRoundedAverageScore() {
+		return String.format("%.1f", Math.round(ratingAverage.doubleValue() * 2) / 2.0);
+	}
+	
+	public String getFormattedAverageScore() {
+		return String.format("%.1f", ratingAverage);
+	}
+
+}
@@ -3,13 +3,19 @@ package com.example.nagoyameshi.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.Review;
 import com.example.nagoyameshi.entity.User;
 
 public interface ReviewRepository extends JpaRepository<Review, Integer> {
-	public Page<Review> findByRestaurantOrderByCreatedAtDesc(Restaurant restaurant, Pageable pageable);
+	@Query(value = "SELECT rv.id AS id, rv.score AS score, rv.content AS content, u.id AS userId, u.name AS userName "
+			     + "FROM Review rv JOIN rv.user u WHERE rv.restaurant = :restaurant ORDER BY rv.createdAt DESC",
+		   countQuery = "SELECT COUNT(rv) FROM Review rv WHERE rv.restaurant = :restaurant")
+	public Page<ReviewSummary> findSummariesByRestaurant(@Param("restaurant") Restaurant restaurant, Pageable pageable);
+	
 	public Review findByRestaurantAndUser(Restaurant restaurant, User user);
 	public void deleteByRestaurant(Restaurant restaurant);
 
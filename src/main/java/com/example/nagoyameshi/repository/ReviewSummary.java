@@ -0,0 +1,11 @@
+package com.example.nagoyameshi.repository;
+
+// レビュー一覧に表示する列（レビューの本文は全文を表示する）
+public interface ReviewSummary {
+	public Integer getId();
+	public Integer getScore();
+	public String getContent();
+	public Integer getUserId();
+	public String getUserName();
+
+}
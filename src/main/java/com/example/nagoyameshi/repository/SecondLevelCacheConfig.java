@@ -0,0 +1,31 @@
+package com.example.nagoyameshi.repository;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+// カテゴリ・定休日・ロール・会社概要・利用規約のように小さくほとんど変わらないテーブルを、Hibernateの2次キャッシュとクエリキャッシュに載せる
+// キャッシュはCaffeine（JCache）でアプリケーション内に持ち、領域ごとの最大件数はapplication.confで上限を決める
+// Hibernate経由の更新はコミット時にキャッシュに反映され、クエリキャッシュはテーブルの更新時刻で無効になる
+@Configuration
+public class SecondLevelCacheConfig {
+
+	@Bean
+	public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+		return properties -> {
+			properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+			properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+			properties.put(ConfigSettings.PROVIDER, CaffeineCachingProvider.class.getName());
+			// application.confに定義していない領域はdefaultの設定で作る
+			properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create");
+			// ヒット・ミスの件数を集計する（管理者のトップページに表示する）
+			properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+		};
+	}
+
+}
@@ -1,10 +1,15 @@
 package com.example.nagoyameshi.repository;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.nagoyameshi.entity.Term;
 
+import jakarta.persistence.QueryHint;
+
 public interface TermRepository extends JpaRepository<Term, Integer>{
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	public Term findFirstByOrderByIdAsc();
 
 }
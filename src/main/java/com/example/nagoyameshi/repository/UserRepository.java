@@ -6,14 +6,22 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.nagoyameshi.entity.User;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
-	public Page<User> findByNameLikeOrFuriganaLike(String nameKeyword, String furiganaKeyword,
-			                                       Pageable pageable);
+	@Query(value = "SELECT u.id AS id, u.name AS name, u.furigana AS furigana, u.email AS email FROM User u",
+		   countQuery = "SELECT COUNT(u) FROM User u")
+	public Page<UserSummary> findAllSummaries(Pageable pageable);
+	
+	@Query(value = "SELECT u.id AS id, u.name AS name, u.furigana AS furigana, u.email AS email FROM User u WHERE u.name LIKE :nameKeyword OR u.furigana LIKE :furiganaKeyword",
+		   countQuery = "SELECT COUNT(u) FROM User u WHERE u.name LIKE :nameKeyword OR u.furigana LIKE :furiganaKeyword")
+	public Page<UserSummary> findSummariesByNameLikeOrFuriganaLike(@Param("nameKeyword") String nameKeyword, @Param("furiganaKeyword") String furiganaKeyword,
+			                                                       Pageable pageable);
 	
 	@Query("SELECT COUNT(u) FROM User u WHERE u.role.name IN ('ROLE_FREE_MEMBER', 'ROLE_PAID_MEMBER')")
 	long countByRoleNameInRoleFreeMemberOrRolePaidMember();
@@ -26,5 +34,7 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 	//@Query("SELECT COUNT(*) FROM users WHERE role.name IN('ROLE_FREE_MEMBER', 'ROLE_PAID_MEMBER')")
 	//long countByRoleNameInRoleFreeMemberOrRolePaidMember();
 
+	// ログイン後はセッションに保持されるため、ロールも取得しておく
+	@EntityGraph("User.withRole")
 	public User findByEmail(String email);
 }
@@ -0,0 +1,10 @@
+package com.example.nagoyameshi.repository;
+
+// 管理者用の会員一覧に表示する列
+public interface UserSummary {
+	public Integer getId();
+	public String getName();
+	public String getFurigana();
+	public String getEmail();
+
+}
@@ -0,0 +1,289 @@
+package com.example.nagoyameshi.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.CategoryChangeEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.repository.CategoryRepository;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+
+// 店舗名・カテゴリ名・住所の都道府県/市区の入力候補を返すトライ木
+// 各ノードにその接頭辞を持つ候補を並び順どおりに保持するため、検索は入力文字数分たどるだけで済む
+@Component
+public class AutocompleteIndex {
+	// 住所から都道府県、市（郡）、区を取り出す
+	private static final Pattern AREA_PATTERN = Pattern.compile("^(.{2,3}?[都道府県])(.+?[市郡])?(.+?区)?");
+
+	// カテゴリ、地域、店舗の順に、短い候補を優先する
+	private static final Comparator<Suggestion> ORDER = Comparator.comparingInt(AutocompleteIndex::priorityOf)
+			                                                      .thenComparingInt(suggestion -> suggestion.getLabel().length())
+			                                                      .thenComparing(Suggestion::getLabel)
+			                                                      .thenComparing(Suggestion::getUrl);
+
+	private final RestaurantRepository restaurantRepository;
+	private final CategoryRepository categoryRepository;
+
+	private final Node root = new Node();
+	private final Map<Integer, Entry> restaurants = new HashMap<>();
+	private final Map<Integer, Entry> categories = new HashMap<>();
+	// 地域ごとの店舗数（0になったら候補から外す）と、店舗ごとの地域
+	private final Map<String, Integer> areaCounts = new HashMap<>();
+	private final Map<Integer, List<Entry>> restaurantAreas = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public AutocompleteIndex(RestaurantRepository restaurantRepository, CategoryRepository categoryRepository) {
+		this.restaurantRepository = restaurantRepository;
+		this.categoryRepository = categoryRepository;
+	}
+
+	// 起動時に全店舗・全カテゴリから作成する
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		List<Restaurant> allRestaurants = restaurantRepository.findAll();
+		List<Category> allCategories = categoryRepository.findAll();
+
+		lock.writeLock().lock();
+		try {
+			root.children.clear();
+			root.suggestions.clear();
+			restaurants.clear();
+			categories.clear();
+			areaCounts.clear();
+			restaurantAreas.clear();
+
+			for (Restaurant restaurant : allRestaurants) {
+				putRestaurant(restaurant);
+			}
+			for (Category category : allCategories) {
+				putCategory(category);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 店舗の登録・更新・削除がコミットされたら反映する
+	@TransactionalEventListener
+	public void onRestaurantChange(RestaurantChangeEvent restaurantChangeEvent) {
+		Integer restaurantId = restaurantChangeEvent.getRestaurantId();
+		Restaurant restaurant = restaurantChangeEvent.isDeleted() ? null : restaurantRepository.findById(restaurantId).orElse(null);
+
+		lock.writeLock().lock();
+		try {
+			removeRestaurant(restaurantId);
+			if (restaurant != null) {
+				putRestaurant(restaurant);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// カテゴリの登録・更新・削除がコミットされたら反映する
+	@TransactionalEventListener
+	public void onCategoryChange(CategoryChangeEvent categoryChangeEvent) {
+		Integer categoryId = categoryChangeEvent.getCategoryId();
+		Category category = categoryChangeEvent.isDeleted() ? null : categoryRepository.findById(categoryId).orElse(null);
+
+		lock.writeLock().lock();
+		try {
+			Entry entry = categories.remove(categoryId);
+			if (entry != null) {
+				remove(entry);
+			}
+			if (category != null) {
+				putCategory(category);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 入力された文字列で始まる候補を最大limit件返す
+	public List<Suggestion> suggest(String prefix, int limit) {
+		String key = JapaneseTextNormalizer.normalize(prefix);
+		List<Suggestion> suggestions = new ArrayList<>();
+
+		if (key.isEmpty()) {
+			return suggestions;
+		}
+
+		lock.readLock().lock();
+		try {
+			Node node = root;
+			for (int i = 0; i < key.length() && node != null; i++) {
+				node = node.children.get(key.charAt(i));
+			}
+
+			if (node != null) {
+				Iterator<Suggestion> iterator = node.suggestions.iterator();
+				while (iterator.hasNext() && suggestions.size() < limit) {
+					suggestions.add(iterator.next());
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return suggestions;
+	}
+
+	private void putRestaurant(Restaurant restaurant) {
+		String url = UriComponentsBuilder.fromPath("/restaurants/{id}").buildAndExpand(restaurant.getId()).toUriString();
+		Suggestion suggestion = new Suggestion(Suggestion.RESTAURANT, restaurant.getName(), url);
+
+		// 「NAGOYA BURGER 名駅店」のように空白で区切られた名前は、区切りの後ろからも入力できるようにする
+		Set<String> keys = new LinkedHashSet<>();
+		keys.add(JapaneseTextNormalizer.normalize(restaurant.getName()));
+		keys.addAll(JapaneseTextNormalizer.normalizeTerms(restaurant.getName()));
+
+		Entry entry = new Entry(suggestion, new ArrayList<>(keys));
+		restaurants.put(restaurant.getId(), entry);
+		add(entry);
+
+		List<Entry> areas = areasOf(restaurant.getAddress());
+		for (Entry area : areas) {
+			if (areaCounts.merge(area.suggestion().getLabel(), 1, Integer::sum) == 1) {
+				add(area);
+			}
+		}
+		restaurantAreas.put(restaurant.getId(), areas);
+	}
+
+	private void removeRestaurant(Integer restaurantId) {
+		Entry entry = restaurants.remove(restaurantId);
+		if (entry != null) {
+			remove(entry);
+		}
+
+		List<Entry> areas = restaurantAreas.remove(restaurantId);
+		if (areas == null) {
+			return;
+		}
+
+		for (Entry area : areas) {
+			String label = area.suggestion().getLabel();
+			if (areaCounts.merge(label, -1, Integer::sum) <= 0) {
+				areaCounts.remove(label);
+				remove(area);
+			}
+		}
+	}
+
+	private void putCategory(Category category) {
+		String url = UriComponentsBuilder.fromPath("/restaurants").queryParam("categoryId", category.getId()).toUriString();
+		Suggestion suggestion = new Suggestion(Suggestion.CATEGORY, category.getName(), url);
+		Entry entry = new Entry(suggestion, List.of(JapaneseTextNormalizer.normalize(category.getName())));
+
+		categories.put(category.getId(), entry);
+		add(entry);
+	}
+
+	// 住所に含まれる地域（都道府県、市、市＋区）の候補（区は区名だけでも入力できる）
+	private static List<Entry> areasOf(String address) {
+		List<Entry> areas = new ArrayList<>();
+		Matcher matcher = AREA_PATTERN.matcher(address != null ? address : "");
+
+		if (!matcher.find()) {
+			return areas;
+		}
+
+		String prefecture = matcher.group(1);
+		String city = matcher.group(2);
+		String ward = matcher.group(3);
+
+		areas.add(areaEntry(prefecture, List.of(prefecture)));
+		if (city != null) {
+			areas.add(areaEntry(city, List.of(city)));
+			if (ward != null) {
+				areas.add(areaEntry(city + ward, List.of(city + ward, ward)));
+			}
+		}
+
+		return areas;
+	}
+
+	private static Entry areaEntry(String label, List<String> keys) {
+		String url = UriComponentsBuilder.fromPath("/restaurants").queryParam("keyword", label).encode().toUriString();
+		List<String> normalizedKeys = new ArrayList<>();
+
+		for (String key : keys) {
+			normalizedKeys.add(JapaneseTextNormalizer.normalize(key));
+		}
+
+		return new Entry(new Suggestion(Suggestion.AREA, label, url), normalizedKeys);
+	}
+
+	private void add(Entry entry) {
+		for (String key : entry.keys()) {
+			Node node = root;
+			for (int i = 0; i < key.length(); i++) {
+				node = node.children.computeIfAbsent(key.charAt(i), character -> new Node());
+				node.suggestions.add(entry.suggestion());
+			}
+		}
+	}
+
+	// 候補を取り除き、候補がなくなったノードは削除する
+	private void remove(Entry entry) {
+		for (String key : entry.keys()) {
+			List<Node> path = new ArrayList<>();
+			Node node = root;
+			path.add(node);
+
+			for (int i = 0; i < key.length() && node != null; i++) {
+				node = node.children.get(key.charAt(i));
+				if (node != null) {
+					node.suggestions.remove(entry.suggestion());
+					path.add(node);
+				}
+			}
+
+			for (int i = path.size() - 1; i > 0; i--) {
+				if (path.get(i).suggestions.isEmpty()) {
+					path.get(i - 1).children.remove(key.charAt(i - 1));
+				}
+			}
+		}
+	}
+
+	private static int priorityOf(Suggestion suggestion) {
+		switch (suggestion.getType()) {
+		case Suggestion.CATEGORY:
+			return 0;
+		case Suggestion.AREA:
+			return 1;
+		default:
+			return 2;
+		}
+	}
+
+	private static class Node {
+		private final Map<Character, Node> children = new HashMap<>();
+		private final TreeSet<Suggestion> suggestions = new TreeSet<>(ORDER);
+	}
+
+	private record Entry(Suggestion suggestion, List<String> keys) {
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.example.nagoyameshi.search;
+
+import java.text.Normalizer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import com.example.nagoyameshi.entity.Restaurant;
+
+@Component
+@ConditionalOnProperty(name = "nagoyameshi.search.backend", havingValue = "fulltext")
+public class FulltextRestaurantSearchBackend implements RestaurantSearchBackend {
+	// ngramパーサーのトークン長（MySQLのngram_token_sizeの既定値）
+	private static final int NGRAM_TOKEN_SIZE = 2;
+	
+	private final LikeRestaurantSearchBackend likeRestaurantSearchBackend = new LikeRestaurantSearchBackend();
+	
+	// restaurantsテーブルのFULLTEXTインデックス(ngramパーサー)でMATCH ... AGAINSTを実行する
+	@Override
+	public Specification<Restaurant> toSpecification(String keyword) {
+		String booleanQuery = toBooleanQuery(keyword);
+		
+		// トークン長に満たない語はFULLTEXTインデックスで検索できないため、LIKE検索で代用する
+		if (booleanQuery == null) {
+			return likeRestaurantSearchBackend.toSpecification(keyword);
+		}
+		
+		return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(
+				criteriaBuilder.function(MySqlFulltextFunctionContributor.MATCH_AGAINST, Double.class,
+						                 root.get("name"), root.get("address"), root.get("description"),
+						                 criteriaBuilder.literal(booleanQuery)),
+				0.0);
+	}
+	
+	// 空白で区切られた語をそれぞれフレーズとして必須にする（例：+"名古屋" +"味噌"）
+	private String toBooleanQuery(String keyword) {
+		StringBuilder booleanQuery = new StringBuilder();
+		
+		for (String term : Normalizer.normalize(keyword, Normalizer.Form.NFKC).trim().split("\\s+")) {
+			String phrase = term.replace("\"", "");
+			if (phrase.length() < NGRAM_TOKEN_SIZE) {
+				return null;
+			}
+			if (booleanQuery.length() > 0) {
+				booleanQuery.append(' ');
+			}
+			booleanQuery.append("+\"").append(phrase).append('"');
+		}
+		
+		return booleanQuery.length() > 0 ? booleanQuery.toString() : null;
+	}
+
+}
@@ -0,0 +1,268 @@
+package com.example.nagoyameshi.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+
+// 入力ミスや表記ゆれ（ひらがな・カタカナ・ローマ字）を許容して店舗名を探すための2-gramインデックス
+// キーワードと店舗名の一部との編集距離で比べる（「ひつまぶす」で「ひつまぶし本舗」が見つかる）
+// 候補は2-gramの共有数で絞り込み、編集距離を計算するのは絞り込んだ候補だけにする
+@Component
+public class FuzzyNameIndex {
+	// 長すぎるキーワードは先頭だけを使う
+	private static final int MAX_QUERY_LENGTH = 32;
+	// 編集距離を計算する候補の上限（店舗数が増えても1回の検索の計算量を一定に抑える）
+	private static final int MAX_CANDIDATES = 500;
+
+	private final RestaurantRepository restaurantRepository;
+
+	// 店舗ごとの照合キー（正規化した店舗名と、そのローマ字をひらがなにしたもの）
+	private final Map<Integer, List<Key>> keys = new HashMap<>();
+	private final Map<String, Set<Key>> postings = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public FuzzyNameIndex(RestaurantRepository restaurantRepository) {
+		this.restaurantRepository = restaurantRepository;
+	}
+
+	// 起動時に全店舗から作成する
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		List<Restaurant> restaurants = restaurantRepository.findAll();
+
+		lock.writeLock().lock();
+		try {
+			keys.clear();
+			postings.clear();
+			for (Restaurant restaurant : restaurants) {
+				add(restaurant.getId(), restaurant.getName());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 店舗の登録・更新・削除がコミットされたら反映する
+	@TransactionalEventListener
+	public void onRestaurantChange(RestaurantChangeEvent restaurantChangeEvent) {
+		Integer restaurantId = restaurantChangeEvent.getRestaurantId();
+		Restaurant restaurant = restaurantChangeEvent.isDeleted() ? null : restaurantRepository.findById(restaurantId).orElse(null);
+
+		put(restaurantId, restaurant != null ? restaurant.getName() : null);
+	}
+
+	// 店舗名を登録し直す（nameがnullなら取り除く）
+	void put(Integer restaurantId, String name) {
+		lock.writeLock().lock();
+		try {
+			remove(restaurantId);
+			if (name != null) {
+				add(restaurantId, name);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// キーワードに名前の近い店舗IDを、編集距離の小さい順（同じ距離ならID順）に最大limit件返す
+	public List<Integer> search(String keyword, int limit) {
+		Set<String> queries = variantsOf(JapaneseTextNormalizer.normalize(keyword));
+		Map<Integer, Integer> distances = new HashMap<>();
+
+		lock.readLock().lock();
+		try {
+			for (String query : queries) {
+				if (query.length() > MAX_QUERY_LENGTH) {
+					query = query.substring(0, MAX_QUERY_LENGTH);
+				}
+
+				// 2-gramを作れない1文字のキーワードは対象外
+				if (query.length() < 2) {
+					continue;
+				}
+
+				int maxDistance = maxDistanceOf(query);
+
+				for (Key key : findCandidates(query, maxDistance)) {
+					int distance = distance(query, key.text(), maxDistance);
+					if (distance <= maxDistance) {
+						distances.merge(key.restaurantId(), distance, Math::min);
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		List<Integer> restaurantIds = new ArrayList<>(distances.keySet());
+		restaurantIds.sort(Comparator.comparingInt((Integer restaurantId) -> distances.get(restaurantId))
+				                     .thenComparingInt(restaurantId -> restaurantId));
+
+		return restaurantIds.size() > limit ? new ArrayList<>(restaurantIds.subList(0, limit)) : restaurantIds;
+	}
+
+	// 2-gramの共有数による候補の絞り込み
+	// 編集1回で変わる2-gramは高々2個なので、距離maxDistance以内で一致する部分を持つキーはクエリの2-gram（重複を除く）のうち (個数 - 2 × maxDistance) 個以上を共有する
+	// そのため出現数の少ない2-gramから (2 × maxDistance + 1) 個のいずれかを必ず含み、候補はそのポスティングリストだけから集められる
+	List<Key> findCandidates(String query, int maxDistance) {
+		List<Set<Key>> lists = new ArrayList<>();
+
+		for (String gram : new LinkedHashSet<>(gramsOf(query))) {
+			lists.add(postings.getOrDefault(gram, Set.of()));
+		}
+
+		lists.sort(Comparator.comparingInt(Set::size));
+
+		int required = lists.size() - 2 * maxDistance;
+		int prefix = Math.min(lists.size(), 2 * maxDistance + 1);
+		Map<Key, Integer> counts = new HashMap<>();
+
+		for (int i = 0; i < prefix; i++) {
+			for (Key key : lists.get(i)) {
+				// キーワードより距離の上限を超えて短いキーは除く
+				if (key.text().length() >= query.length() - maxDistance) {
+					counts.merge(key, 1, Integer::sum);
+				}
+			}
+		}
+
+		// 出現数の多い2-gramはポスティングリストを走査せず、候補ごとに含まれるかだけを調べる
+		List<Key> candidates = new ArrayList<>();
+		for (Map.Entry<Key, Integer> entry : counts.entrySet()) {
+			int count = entry.getValue();
+			for (int i = prefix; i < lists.size() && count < required; i++) {
+				if (lists.get(i).contains(entry.getKey())) {
+					count++;
+				}
+			}
+			if (count >= required) {
+				entry.setValue(count);
+				candidates.add(entry.getKey());
+			}
+		}
+
+		// 共有する2-gramの多い候補から上限件数まで
+		if (candidates.size() > MAX_CANDIDATES) {
+			candidates.sort(Comparator.comparingInt((Key key) -> counts.get(key)).reversed());
+			candidates = new ArrayList<>(candidates.subList(0, MAX_CANDIDATES));
+		}
+
+		return candidates;
+	}
+
+	private void add(Integer restaurantId, String name) {
+		List<Key> restaurantKeys = new ArrayList<>();
+
+		for (String text : variantsOf(JapaneseTextNormalizer.normalize(name))) {
+			Key key = new Key(restaurantId, text);
+			restaurantKeys.add(key);
+			for (String gram : gramsOf(text)) {
+				postings.computeIfAbsent(gram, k -> new HashSet<>()).add(key);
+			}
+		}
+
+		keys.put(restaurantId, restaurantKeys);
+	}
+
+	private void remove(Integer restaurantId) {
+		List<Key> restaurantKeys = keys.remove(restaurantId);
+
+		if (restaurantKeys == null) {
+			return;
+		}
+
+		for (Key key : restaurantKeys) {
+			for (String gram : gramsOf(key.text())) {
+				Set<Key> posting = postings.get(gram);
+				if (posting != null) {
+					posting.remove(key);
+					if (posting.isEmpty()) {
+						postings.remove(gram);
+					}
+				}
+			}
+		}
+	}
+
+	// 正規化した文字列と、ローマ字をひらがなにした文字列
+	private static Set<String> variantsOf(String normalizedText) {
+		Set<String> variants = new LinkedHashSet<>();
+
+		if (!normalizedText.isEmpty()) {
+			variants.add(normalizedText);
+			variants.add(JapaneseTextNormalizer.romajiToHiragana(normalizedText));
+		}
+
+		return variants;
+	}
+
+	private static List<String> gramsOf(String text) {
+		List<String> grams = new ArrayList<>();
+
+		for (int i = 0; i + 1 < text.length(); i++) {
+			grams.add(text.substring(i, i + 2));
+		}
+
+		return grams;
+	}
+
+	// 許容する編集距離（短い語ほど小さくし、2-gramによる絞り込みが効く範囲に収める）
+	// 3文字以下は0（ローマ字とかなの違いだけを許容する）
+	static int maxDistanceOf(String query) {
+		int maxDistance = query.length() <= 6 ? 1 : (query.length() <= 10 ? 2 : 3);
+		return Math.max(0, Math.min(maxDistance, (query.length() - 2) / 2));
+	}
+
+	// キーワードとtargetの一部分とのレーベンシュタイン距離（targetの前後の余りは数えない）
+	// maxDistanceを超えることが確定した時点で打ち切り、maxDistance + 1を返す
+	static int distance(String source, String target, int maxDistance) {
+		int[] previous = new int[target.length() + 1];
+		int[] current = new int[target.length() + 1];
+
+		for (int i = 1; i <= source.length(); i++) {
+			current[0] = i;
+			int rowMin = current[0];
+
+			for (int j = 1; j <= target.length(); j++) {
+				int cost = source.charAt(i - 1) == target.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+				rowMin = Math.min(rowMin, current[j]);
+			}
+
+			if (rowMin > maxDistance) {
+				return maxDistance + 1;
+			}
+
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		int min = previous[0];
+		for (int j = 1; j <= target.length(); j++) {
+			min = Math.min(min, previous[j]);
+		}
+
+		return min;
+	}
+
+	record Key(int restaurantId, String text) {
+	}
+
+}
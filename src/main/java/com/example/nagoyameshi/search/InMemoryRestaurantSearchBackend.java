@@ -0,0 +1,40 @@
+package com.example.nagoyameshi.search;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.repository.RestaurantSpecifications;
+
+@Component
+@ConditionalOnProperty(name = "nagoyameshi.search.backend", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRestaurantSearchBackend implements RestaurantSearchBackend {
+	private final RestaurantSearchIndex restaurantSearchIndex;
+	
+	public InMemoryRestaurantSearchBackend(RestaurantSearchIndex restaurantSearchIndex) {
+		this.restaurantSearchIndex = restaurantSearchIndex;
+	}
+	
+	@Override
+	public Specification<Restaurant> toSpecification(String keyword) {
+		return toSpecification(match(keyword));
+	}
+	
+	// 一致した件数に関わらず店舗IDを返す（店舗一覧はIDが多い場合もIN句に渡さず、並び順に読み進めながら絞り込む）
+	@Override
+	public KeywordMatch match(String keyword) {
+		List<Integer> restaurantIds = restaurantSearchIndex.search(keyword, null);
+		
+		return new KeywordMatch(keyword, restaurantIds);
+	}
+	
+	// 転置インデックスで一致した店舗IDを主キーで絞り込む（全件走査を避ける）
+	@Override
+	public Specification<Restaurant> toSpecification(KeywordMatch keywordMatch) {
+		return RestaurantSpecifications.idIn(keywordMatch.getRestaurantIds());
+	}
+
+}
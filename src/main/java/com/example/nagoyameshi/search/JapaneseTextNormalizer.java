@@ -0,0 +1,170 @@
+package com.example.nagoyameshi.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public final class JapaneseTextNormalizer {
+	// ローマ字（ヘボン式・訓令式）とひらがなの対応
+	private static final String[] ROMAJI = {
+		"a", "あ", "i", "い", "u", "う", "e", "え", "o", "お",
+		"ka", "か", "ki", "き", "ku", "く", "ke", "け", "ko", "こ", "kya", "きゃ", "kyu", "きゅ", "kyo", "きょ",
+		"sa", "さ", "shi", "し", "si", "し", "su", "す", "se", "せ", "so", "そ", "sha", "しゃ", "shu", "しゅ", "sho", "しょ", "sya", "しゃ", "syu", "しゅ", "syo", "しょ",
+		"ta", "た", "chi", "ち", "ti", "ち", "tsu", "つ", "tu", "つ", "te", "て", "to", "と", "cha", "ちゃ", "chu", "ちゅ", "cho", "ちょ", "tya", "ちゃ", "tyu", "ちゅ", "tyo", "ちょ",
+		"na", "な", "ni", "に", "nu", "ぬ", "ne", "ね", "no", "の", "nya", "にゃ", "nyu", "にゅ", "nyo", "にょ",
+		"ha", "は", "hi", "ひ", "fu", "ふ", "hu", "ふ", "he", "へ", "ho", "ほ", "hya", "ひゃ", "hyu", "ひゅ", "hyo", "ひょ",
+		"fa", "ふぁ", "fi", "ふぃ", "fe", "ふぇ", "fo", "ふぉ",
+		"ma", "ま", "mi", "み", "mu", "む", "me", "め", "mo", "も", "mya", "みゃ", "myu", "みゅ", "myo", "みょ",
+		"ya", "や", "yu", "ゆ", "yo", "よ",
+		"ra", "ら", "ri", "り", "ru", "る", "re", "れ", "ro", "ろ", "rya", "りゃ", "ryu", "りゅ", "ryo", "りょ",
+		"wa", "わ", "wo", "を",
+		"ga", "が", "gi", "ぎ", "gu", "ぐ", "ge", "げ", "go", "ご", "gya", "ぎゃ", "gyu", "ぎゅ", "gyo", "ぎょ",
+		"za", "ざ", "ji", "じ", "zi", "じ", "zu", "ず", "ze", "ぜ", "zo", "ぞ", "ja", "じゃ", "ju", "じゅ", "jo", "じょ", "jya", "じゃ", "jyu", "じゅ", "jyo", "じょ",
+		"da", "だ", "di", "ぢ", "du", "づ", "de", "で", "do", "ど",
+		"ba", "ば", "bi", "び", "bu", "ぶ", "be", "べ", "bo", "ぼ", "bya", "びゃ", "byu", "びゅ", "byo", "びょ",
+		"pa", "ぱ", "pi", "ぴ", "pu", "ぷ", "pe", "ぺ", "po", "ぽ", "pya", "ぴゃ", "pyu", "ぴゅ", "pyo", "ぴょ"
+	};
+	private static final Map<String, String> ROMAJI_TO_HIRAGANA = new HashMap<>();
+
+	static {
+		for (int i = 0; i < ROMAJI.length; i += 2) {
+			ROMAJI_TO_HIRAGANA.put(ROMAJI[i], ROMAJI[i + 1]);
+		}
+	}
+
+	private JapaneseTextNormalizer() {
+	}
+
+	// 全角・半角の統一(NFKC)、英字の小文字化、カタカナのひらがな化を行い、空白を取り除く
+	public static String normalize(String text) {
+		if (text == null) {
+			return "";
+		}
+
+		String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+		StringBuilder builder = new StringBuilder(normalized.length());
+
+		for (int i = 0; i < normalized.length(); i++) {
+			char c = normalized.charAt(i);
+
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+
+			// ァ(U+30A1)～ヶ(U+30F6)をぁ(U+3041)～ゖ(U+3096)に変換する
+			if (c >= 'ァ' && c <= 'ヶ') {
+				c = (char) (c - 0x60);
+			}
+
+			builder.append(c);
+		}
+
+		return builder.toString();
+	}
+
+	// 検索キーワードを空白(全角を含む)で区切り、それぞれを正規化して返す
+	public static List<String> normalizeTerms(String keyword) {
+		List<String> terms = new ArrayList<>();
+
+		if (keyword == null) {
+			return terms;
+		}
+
+		for (String term : Normalizer.normalize(keyword, Normalizer.Form.NFKC).split("\\s+")) {
+			String normalizedTerm = normalize(term);
+			if (!normalizedTerm.isEmpty()) {
+				terms.add(normalizedTerm);
+			}
+		}
+
+		return terms;
+	}
+
+	// 1文字と2文字のN-gramに分割する（1文字のキーワードでも検索できるようにするため）
+	public static List<String> ngrams(String normalizedText) {
+		List<String> grams = new ArrayList<>();
+
+		for (int i = 0; i < normalizedText.length(); i++) {
+			grams.add(normalizedText.substring(i, i + 1));
+			if (i + 1 < normalizedText.length()) {
+				grams.add(normalizedText.substring(i, i + 2));
+			}
+		}
+
+		return grams;
+	}
+
+	// 検索時に使うN-gram（2文字以上なら2-gramのみ、1文字ならその1文字）
+	public static List<String> queryGrams(String normalizedTerm) {
+		List<String> grams = new ArrayList<>();
+
+		if (normalizedTerm.length() == 1) {
+			grams.add(normalizedTerm);
+			return grams;
+		}
+
+		for (int i = 0; i + 1 < normalizedTerm.length(); i++) {
+			grams.add(normalizedTerm.substring(i, i + 2));
+		}
+
+		return grams;
+	}
+
+	// 正規化済みの文字列に含まれるローマ字をひらがなにする（「nagoya」→「なごや」）
+	// ひらがなにできない英字はそのまま残す
+	public static String romajiToHiragana(String normalizedText) {
+		StringBuilder builder = new StringBuilder(normalizedText.length());
+		int i = 0;
+
+		while (i < normalizedText.length()) {
+			char c = normalizedText.charAt(i);
+			char next = i + 1 < normalizedText.length() ? normalizedText.charAt(i + 1) : 0;
+
+			if (c < 'a' || c > 'z') {
+				builder.append(c);
+				i++;
+				continue;
+			}
+
+			// 「kk」「tch」などの促音
+			if (!isVowel(c) && c != 'n' && (c == next || (c == 't' && next == 'c'))) {
+				builder.append('っ');
+				i++;
+				continue;
+			}
+
+			// 母音・yが続かないnは「ん」（「nn」も「ん」）
+			if (c == 'n' && !isVowel(next) && next != 'y') {
+				char afterNext = i + 2 < normalizedText.length() ? normalizedText.charAt(i + 2) : 0;
+				builder.append('ん');
+				i += next == 'n' && !isVowel(afterNext) && afterNext != 'y' ? 2 : 1;
+				continue;
+			}
+
+			// 長い綴りから順に対応を探す（「sha」「sa」など）
+			String kana = null;
+			int length = Math.min(3, normalizedText.length() - i);
+			while (length > 0 && (kana = ROMAJI_TO_HIRAGANA.get(normalizedText.substring(i, i + length))) == null) {
+				length--;
+			}
+
+			if (kana == null) {
+				builder.append(c);
+				i++;
+			} else {
+				builder.append(kana);
+				i += length;
+			}
+		}
+
+		return builder.toString();
+	}
+
+	private static boolean isVowel(char c) {
+		return c == 'a' || c == 'i' || c == 'u' || c == 'e' || c == 'o';
+	}
+
+}
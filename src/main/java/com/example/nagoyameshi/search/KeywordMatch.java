@@ -0,0 +1,20 @@
+package com.example.nagoyameshi.search;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// キーワード検索の結果（1回のリクエストで一覧のSQLと件数の集計の両方に使い、インデックスを何度も引かない）
+@Getter
+@AllArgsConstructor
+public class KeywordMatch {
+	private final String keyword;
+	// メモリ上のインデックスで一致した店舗ID（インデックスを使わない設定ではnull）
+	private final List<Integer> restaurantIds;
+	
+	public boolean hasRestaurantIds() {
+		return restaurantIds != null;
+	}
+
+}
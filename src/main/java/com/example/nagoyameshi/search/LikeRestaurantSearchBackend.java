@@ -0,0 +1,20 @@
+package com.example.nagoyameshi.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import com.example.nagoyameshi.entity.Restaurant;
+
+@Component
+@ConditionalOnProperty(name = "nagoyameshi.search.backend", havingValue = "like")
+public class LikeRestaurantSearchBackend implements RestaurantSearchBackend {
+	
+	// 店舗名または住所の部分一致で検索する
+	@Override
+	public Specification<Restaurant> toSpecification(String keyword) {
+		return (root, query, criteriaBuilder) -> criteriaBuilder.or(criteriaBuilder.like(root.get("name"), "%" + keyword + "%"),
+				                                                    criteriaBuilder.like(root.get("address"), "%" + keyword + "%"));
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.example.nagoyameshi.search;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+// MySQLのMATCH ... AGAINSTをJPQL・Criteria APIから関数として呼び出せるように登録する
+// (META-INF/services/org.hibernate.boot.model.FunctionContributor で読み込まれる)
+public class MySqlFulltextFunctionContributor implements FunctionContributor {
+	public static final String MATCH_AGAINST = "match_against";
+	
+	@Override
+	public void contributeFunctions(FunctionContributions functionContributions) {
+		functionContributions.getFunctionRegistry().registerPattern(
+				MATCH_AGAINST,
+				"match(?1, ?2, ?3) against (?4 in boolean mode)",
+				functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE));
+	}
+
+}
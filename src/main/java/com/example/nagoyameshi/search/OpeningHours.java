@@ -0,0 +1,58 @@
+package com.example.nagoyameshi.search;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.Collection;
+
+// 営業時間を曜日×30分単位の枠（7×48）のビットで表す
+// 曜日はRegularHoliday.dayIndexと同じく0：日曜～6：土曜
+// 枠のビットは絞り込みの候補で、営業しているかどうかはisOpen()で分単位の時刻を比較して決める
+public final class OpeningHours {
+	public static final int SLOT_MINUTES = 30;
+	public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+	public static final int SLOTS = 7 * SLOTS_PER_DAY;
+
+	private OpeningHours() {
+	}
+
+	// 定休日以外の曜日で、枠の中に営業している時刻が1分でもある枠のビットを立てる
+	// 11:15開店なら11:00～11:30の枠も立つため、枠の開始時刻より後に開店・閉店する店舗も候補から漏れない
+	public static BitSet slotsOf(int openingMinutes, int closingMinutes, Collection<Integer> closedDayIndexes) {
+		BitSet slots = new BitSet(SLOTS);
+
+		for (int dayIndex = 0; dayIndex < 7; dayIndex++) {
+			if (closedDayIndexes.contains(dayIndex)) {
+				continue;
+			}
+			for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+				int start = slot * SLOT_MINUTES;
+				if (openingMinutes < start + SLOT_MINUTES && start < closingMinutes) {
+					slots.set(dayIndex * SLOTS_PER_DAY + slot);
+				}
+			}
+		}
+
+		return slots;
+	}
+
+	// 開店時刻以降かつ閉店時刻より前なら営業している（RestaurantSpecifications.openAt()と同じ条件）
+	public static boolean isOpen(int openingMinutes, int closingMinutes, int minutes) {
+		return openingMinutes <= minutes && minutes < closingMinutes;
+	}
+
+	// 曜日と時刻が含まれる枠
+	public static int slotOf(int dayIndex, LocalTime time) {
+		return dayIndex * SLOTS_PER_DAY + minutesOf(time) / SLOT_MINUTES;
+	}
+
+	// 0時からの分数（秒以下は切り捨てる）
+	public static int minutesOf(LocalTime time) {
+		return time != null ? time.getHour() * 60 + time.getMinute() : 0;
+	}
+
+	public static int dayIndexOf(DayOfWeek dayOfWeek) {
+		return dayOfWeek.getValue() % 7;
+	}
+
+}
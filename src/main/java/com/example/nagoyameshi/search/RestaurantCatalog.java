@@ -0,0 +1,592 @@
+package com.example.nagoyameshi.search;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.nagoyameshi.entity.RegularHoliday;
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.CategoryChangeEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.repository.CategoryRestaurantRepository;
+import com.example.nagoyameshi.repository.RegularHolidayRepository;
+import com.example.nagoyameshi.repository.RegularHolidayRestaurantRepository;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// 店舗一覧の絞り込みと件数集計のための、列ごとに配列で持つ店舗のスナップショット
+// 店舗は行番号で管理し、カテゴリ・定休日ごとに該当する行のビットマップを持つ
+@Component
+public class RestaurantCatalog {
+	private static final int INITIAL_CAPACITY = 256;
+
+	private final RestaurantRepository restaurantRepository;
+	private final CategoryRestaurantRepository categoryRestaurantRepository;
+	private final RegularHolidayRestaurantRepository regularHolidayRestaurantRepository;
+	private final RegularHolidayRepository regularHolidayRepository;
+	// 作り直しでテーブルの読み込みと列の作成に使う専用のプール（共通のプールを使う他の処理と取り合わない）
+	private final ForkJoinPool pool;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile boolean ready = false;
+
+	// 行番号ごとの列（削除された行はliveのビットを落とす）
+	private int size;
+	private int[] ids = new int[INITIAL_CAPACITY];
+	private int[] lowestPrices = new int[INITIAL_CAPACITY];
+	private int[] highestPrices = new int[INITIAL_CAPACITY];
+	private int[] openingMinutes = new int[INITIAL_CAPACITY];
+	private int[] closingMinutes = new int[INITIAL_CAPACITY];
+	private int[] seatingCapacities = new int[INITIAL_CAPACITY];
+	private BitSet live = new BitSet();
+	private Map<Integer, Integer> rows = new HashMap<>();
+
+	// カテゴリID・定休日IDごとの行のビットマップ
+	private Map<Integer, BitSet> categoryBitmaps = new HashMap<>();
+	private Map<Integer, BitSet> regularHolidayBitmaps = new HashMap<>();
+	// 曜日(dayIndex)ごとの定休日ID
+	private Map<Integer, List<Integer>> regularHolidayIdsByDayIndex = new HashMap<>();
+	// 曜日×30分の枠ごとに、枠の中で営業している時刻がある行のビットマップ（OpeningHours.slotOf()の枠番号で引く）
+	private BitSet[] openSlotBitmaps = newSlotBitmaps();
+	// 作り直しの間にコミットされた変更（作り直していなければnull）。読み込んだテーブルに含まれない場合があるため、入れ替えた後にやり直す
+	private List<Runnable> changesDuringRebuild;
+
+	public RestaurantCatalog(RestaurantRepository restaurantRepository, CategoryRestaurantRepository categoryRestaurantRepository,
+			                 RegularHolidayRestaurantRepository regularHolidayRestaurantRepository, RegularHolidayRepository regularHolidayRepository,
+			                 @Value("${nagoyameshi.catalog.parallelism:0}") int parallelism) {
+		this.restaurantRepository = restaurantRepository;
+		this.categoryRestaurantRepository = categoryRestaurantRepository;
+		this.regularHolidayRestaurantRepository = regularHolidayRestaurantRepository;
+		this.regularHolidayRepository = regularHolidayRepository;
+		// 0の場合はCPUのコア数だけワーカーを使う
+		this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	// 起動時に全店舗から作成する（各テーブルの読み込みと列の作成を並列に行う）
+	// 読み込みの間に届いた変更は記録しておき、新しい列に入れ替えた後に同じロックの中でやり直す
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			changesDuringRebuild = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		try {
+			swap(pool.submit(this::load).join());
+		} finally {
+			lock.writeLock().lock();
+			try {
+				changesDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	// テーブルを読み込んで新しい列を作る（プールのタスクとして実行するため、並列ストリームもこのプールで動く）
+	private Snapshot load() {
+		CompletableFuture<List<Restaurant>> restaurantsFuture = CompletableFuture.supplyAsync(restaurantRepository::findAll, pool);
+		CompletableFuture<List<Object[]>> categoriesFuture = CompletableFuture.supplyAsync(categoryRestaurantRepository::findAllRestaurantIdAndCategoryId, pool);
+		CompletableFuture<List<Object[]>> regularHolidaysFuture = CompletableFuture.supplyAsync(regularHolidayRestaurantRepository::findAllRestaurantIdAndRegularHolidayId, pool);
+		CompletableFuture<List<RegularHoliday>> dayIndexesFuture = CompletableFuture.supplyAsync(regularHolidayRepository::findAll, pool);
+
+		List<Restaurant> restaurants = restaurantsFuture.join();
+		int count = restaurants.size();
+		int capacity = Math.max(INITIAL_CAPACITY, count);
+
+		int[] newIds = new int[capacity];
+		int[] newLowestPrices = new int[capacity];
+		int[] newHighestPrices = new int[capacity];
+		int[] newOpeningMinutes = new int[capacity];
+		int[] newClosingMinutes = new int[capacity];
+		int[] newSeatingCapacities = new int[capacity];
+
+		IntStream.range(0, count).parallel().forEach(row -> {
+			Restaurant restaurant = restaurants.get(row);
+			newIds[row] = restaurant.getId();
+			newLowestPrices[row] = valueOf(restaurant.getLowestPrice());
+			newHighestPrices[row] = valueOf(restaurant.getHighestPrice());
+			newOpeningMinutes[row] = OpeningHours.minutesOf(restaurant.getOpeningTime());
+			newClosingMinutes[row] = OpeningHours.minutesOf(restaurant.getClosingTime());
+			newSeatingCapacities[row] = valueOf(restaurant.getSeatingCapacity());
+		});
+
+		Map<Integer, Integer> newRows = new HashMap<>(count * 2);
+		BitSet newLive = new BitSet(count);
+		for (int row = 0; row < count; row++) {
+			newRows.put(newIds[row], row);
+		}
+		newLive.set(0, count);
+
+		List<Object[]> regularHolidayPairs = regularHolidaysFuture.join();
+		List<RegularHoliday> regularHolidays = dayIndexesFuture.join();
+		Map<Integer, BitSet> newCategoryBitmaps = toBitmaps(categoriesFuture.join(), newRows);
+		Map<Integer, BitSet> newRegularHolidayBitmaps = toBitmaps(regularHolidayPairs, newRows);
+		Map<Integer, List<Integer>> newRegularHolidayIdsByDayIndex = toRegularHolidayIdsByDayIndex(regularHolidays);
+
+		// 行ごとの営業枠を並列に求めてから、枠ごとのビットマップにまとめる
+		Map<Integer, List<Integer>> closedDayIndexes = toClosedDayIndexes(regularHolidayPairs, regularHolidays, newRows);
+		BitSet[] rowSlots = new BitSet[count];
+		IntStream.range(0, count).parallel().forEach(row -> {
+			rowSlots[row] = OpeningHours.slotsOf(newOpeningMinutes[row], newClosingMinutes[row], closedDayIndexes.getOrDefault(row, List.of()));
+		});
+
+		BitSet[] newOpenSlotBitmaps = newSlotBitmaps();
+		for (int row = 0; row < count; row++) {
+			setSlots(newOpenSlotBitmaps, rowSlots[row], row);
+		}
+
+		return new Snapshot(count, newIds, newLowestPrices, newHighestPrices, newOpeningMinutes, newClosingMinutes, newSeatingCapacities,
+				            newLive, newRows, newCategoryBitmaps, newRegularHolidayBitmaps, newRegularHolidayIdsByDayIndex, newOpenSlotBitmaps);
+	}
+
+	private void swap(Snapshot snapshot) {
+		lock.writeLock().lock();
+		try {
+			size = snapshot.size();
+			ids = snapshot.ids();
+			lowestPrices = snapshot.lowestPrices();
+			highestPrices = snapshot.highestPrices();
+			openingMinutes = snapshot.openingMinutes();
+			closingMinutes = snapshot.closingMinutes();
+			seatingCapacities = snapshot.seatingCapacities();
+			live = snapshot.live();
+			rows = snapshot.rows();
+			categoryBitmaps = snapshot.categoryBitmaps();
+			regularHolidayBitmaps = snapshot.regularHolidayBitmaps();
+			regularHolidayIdsByDayIndex = snapshot.regularHolidayIdsByDayIndex();
+			openSlotBitmaps = snapshot.openSlotBitmaps();
+
+			for (Runnable change : changesDuringRebuild) {
+				change.run();
+			}
+			ready = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 店舗の登録・更新・削除（カテゴリと定休日を含む）がコミットされたら反映する
+	@TransactionalEventListener
+	public void onRestaurantChange(RestaurantChangeEvent restaurantChangeEvent) {
+		Integer restaurantId = restaurantChangeEvent.getRestaurantId();
+
+		if (restaurantChangeEvent.isDeleted()) {
+			remove(restaurantId);
+			return;
+		}
+
+		restaurantRepository.findById(restaurantId).ifPresent(restaurant -> {
+			List<Integer> categoryIds = categoryRestaurantRepository.findCategoryIdsByRestaurantOrderByIdAsc(restaurant);
+			List<Integer> regularHolidayIds = regularHolidayRestaurantRepository.findRegularHolidayIdsByRestaurantOrderByRegularHolidayIdAsc(restaurant);
+			put(restaurant, categoryIds, regularHolidayIds);
+		});
+	}
+
+	// 削除されたカテゴリのビットマップを破棄する
+	@TransactionalEventListener
+	public void onCategoryChange(CategoryChangeEvent categoryChangeEvent) {
+		if (!categoryChangeEvent.isDeleted()) {
+			return;
+		}
+
+		Integer categoryId = categoryChangeEvent.getCategoryId();
+
+		lock.writeLock().lock();
+		try {
+			recordChange(() -> categoryBitmaps.remove(categoryId));
+			categoryBitmaps.remove(categoryId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public void put(Restaurant restaurant, Collection<Integer> categoryIds, Collection<Integer> regularHolidayIds) {
+		lock.writeLock().lock();
+		try {
+			recordChange(() -> putRow(restaurant, categoryIds, regularHolidayIds));
+			putRow(restaurant, categoryIds, regularHolidayIds);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Integer restaurantId) {
+		lock.writeLock().lock();
+		try {
+			recordChange(() -> removeRow(restaurantId));
+			removeRow(restaurantId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 作り直している間の変更を記録する（書き込みロックを持った状態で呼ぶ）
+	private void recordChange(Runnable change) {
+		if (changesDuringRebuild != null) {
+			changesDuringRebuild.add(change);
+		}
+	}
+
+	// 以下の2つは書き込みロックを持った状態で呼ぶ
+	private void putRow(Restaurant restaurant, Collection<Integer> categoryIds, Collection<Integer> regularHolidayIds) {
+		Integer row = rows.get(restaurant.getId());
+
+		if (row == null) {
+			row = size++;
+			ensureCapacity(size);
+			rows.put(restaurant.getId(), row);
+		} else {
+			clearBits(categoryBitmaps, row);
+			clearBits(regularHolidayBitmaps, row);
+			clearSlots(openSlotBitmaps, row);
+		}
+
+		ids[row] = restaurant.getId();
+		lowestPrices[row] = valueOf(restaurant.getLowestPrice());
+		highestPrices[row] = valueOf(restaurant.getHighestPrice());
+		openingMinutes[row] = OpeningHours.minutesOf(restaurant.getOpeningTime());
+		closingMinutes[row] = OpeningHours.minutesOf(restaurant.getClosingTime());
+		seatingCapacities[row] = valueOf(restaurant.getSeatingCapacity());
+		live.set(row);
+
+		for (Integer categoryId : categoryIds) {
+			categoryBitmaps.computeIfAbsent(categoryId, key -> new BitSet()).set(row);
+		}
+		for (Integer regularHolidayId : regularHolidayIds) {
+			regularHolidayBitmaps.computeIfAbsent(regularHolidayId, key -> new BitSet()).set(row);
+		}
+
+		// 営業時間か定休日が変わった場合に備えて、営業枠は毎回求め直す
+		List<Integer> closedDayIndexes = new ArrayList<>();
+		for (Map.Entry<Integer, List<Integer>> entry : regularHolidayIdsByDayIndex.entrySet()) {
+			for (Integer regularHolidayId : entry.getValue()) {
+				if (regularHolidayIds.contains(regularHolidayId)) {
+					closedDayIndexes.add(entry.getKey());
+				}
+			}
+		}
+		setSlots(openSlotBitmaps, OpeningHours.slotsOf(openingMinutes[row], closingMinutes[row], closedDayIndexes), row);
+	}
+
+	private void removeRow(Integer restaurantId) {
+		Integer row = rows.get(restaurantId);
+		if (row != null) {
+			live.clear(row);
+			clearBits(categoryBitmaps, row);
+			clearBits(regularHolidayBitmaps, row);
+			clearSlots(openSlotBitmaps, row);
+		}
+	}
+
+	// 絞り込み条件に一致する店舗IDを返す（店舗一覧で、営業時間のようにメモリ上で判定する条件を含む場合に使う）
+	// 引数の意味はfacets()と同じ
+	public Set<Integer> findRestaurantIds(Collection<Integer> restaurantIds, List<Integer> categoryIds, Integer minPrice, Integer maxPrice,
+			                              Integer weekday, Integer openDayIndex, LocalTime openTime) {
+		lock.readLock().lock();
+		try {
+			BitSet result = baseRows(restaurantIds, minPrice, weekday, openDayIndex, openTime);
+
+			if (maxPrice != null) {
+				result.and(matchingRows(result, lowestPrices, maxPrice, false));
+			}
+
+			BitSet categoryFilter = categoryFilter(categoryIds);
+			if (categoryFilter != null) {
+				result.and(categoryFilter);
+			}
+
+			Set<Integer> matchingIds = new HashSet<>(result.cardinality() * 2);
+			for (int row = result.nextSetBit(0); row >= 0; row = result.nextSetBit(row + 1)) {
+				matchingIds.add(ids[row]);
+			}
+
+			return matchingIds;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// 絞り込み条件に一致する店舗の件数と、カテゴリ別・予算別の件数を返す
+	// restaurantIdsがnullでなければ、その店舗（キーワード検索の結果など）に限定する
+	// カテゴリ別の件数はカテゴリ以外の条件で、予算別の件数は予算の上限以外の条件で数える
+	// openTimeがnullでなければ、openDayIndexの曜日のその時刻に営業している店舗に限定する
+	public RestaurantFacets facets(Collection<Integer> restaurantIds, List<Integer> categoryIds, Integer minPrice, Integer maxPrice,
+			                       Integer weekday, Integer openDayIndex, LocalTime openTime, List<Integer> priceBuckets) {
+		lock.readLock().lock();
+		try {
+			BitSet base = baseRows(restaurantIds, minPrice, weekday, openDayIndex, openTime);
+
+			BitSet categoryBase = (BitSet) base.clone();
+			BitSet priceBase = (BitSet) base.clone();
+
+			if (maxPrice != null) {
+				categoryBase.and(matchingRows(categoryBase, lowestPrices, maxPrice, false));
+			}
+
+			BitSet categoryFilter = categoryFilter(categoryIds);
+			if (categoryFilter != null) {
+				priceBase.and(categoryFilter);
+			}
+
+			BitSet result = (BitSet) categoryBase.clone();
+			if (categoryFilter != null) {
+				result.and(categoryFilter);
+			}
+
+			Map<Integer, Integer> categoryCounts = new HashMap<>();
+			for (Map.Entry<Integer, BitSet> entry : categoryBitmaps.entrySet()) {
+				BitSet rowsInCategory = (BitSet) entry.getValue().clone();
+				rowsInCategory.and(categoryBase);
+				categoryCounts.put(entry.getKey(), rowsInCategory.cardinality());
+			}
+
+			return new RestaurantFacets(result.cardinality(), categoryCounts, priceCounts(priceBase, priceBuckets));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// カテゴリと予算の上限以外の条件に一致する行（読み込みロックを持った状態で呼ぶ）
+	private BitSet baseRows(Collection<Integer> restaurantIds, Integer minPrice, Integer weekday, Integer openDayIndex, LocalTime openTime) {
+		BitSet base = (BitSet) live.clone();
+
+		if (restaurantIds != null) {
+			base.and(rowsOf(restaurantIds));
+		}
+		if (weekday != null) {
+			for (Integer regularHolidayId : regularHolidayIdsByDayIndex.getOrDefault(weekday, List.of())) {
+				BitSet holidays = regularHolidayBitmaps.get(regularHolidayId);
+				if (holidays != null) {
+					base.andNot(holidays);
+				}
+			}
+		}
+		if (openTime != null) {
+			// 枠のビットマップ（定休日の曜日は立っていない）で候補を絞り込んでから、候補の行だけ開店・閉店時刻と分単位で比較する
+			base.and(openSlotBitmaps[OpeningHours.slotOf(openDayIndex, openTime)]);
+			base.and(openRows(base, OpeningHours.minutesOf(openTime)));
+		}
+		if (minPrice != null) {
+			base.and(matchingRows(base, highestPrices, minPrice, true));
+		}
+
+		return base;
+	}
+
+	// 予算の上限ごとに、最低価格がその金額以下の店舗を数える
+	private Map<Integer, Integer> priceCounts(BitSet base, List<Integer> priceBuckets) {
+		int[] buckets = priceBuckets.stream().mapToInt(Integer::intValue).sorted().toArray();
+		int[] counts = new int[buckets.length];
+
+		for (int row = base.nextSetBit(0); row >= 0; row = base.nextSetBit(row + 1)) {
+			int index = Arrays.binarySearch(buckets, lowestPrices[row]);
+			if (index < 0) {
+				index = -index - 1;
+			}
+			if (index < buckets.length) {
+				counts[index]++;
+			}
+		}
+
+		Map<Integer, Integer> priceCounts = new HashMap<>();
+		int total = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			total += counts[i];
+			priceCounts.put(buckets[i], total);
+		}
+
+		return priceCounts;
+	}
+
+	// いずれかのカテゴリに属する行（カテゴリの指定がなければnull）
+	private BitSet categoryFilter(List<Integer> categoryIds) {
+		if (categoryIds == null) {
+			return null;
+		}
+
+		BitSet filter = null;
+		for (Integer categoryId : categoryIds) {
+			if (categoryId == null) {
+				continue;
+			}
+			if (filter == null) {
+				filter = new BitSet();
+			}
+			BitSet rowsInCategory = categoryBitmaps.get(categoryId);
+			if (rowsInCategory != null) {
+				filter.or(rowsInCategory);
+			}
+		}
+
+		return filter;
+	}
+
+	// candidatesのうち、列の値がvalue以上（atLeastがfalseならvalue以下）の行
+	private BitSet matchingRows(BitSet candidates, int[] column, int value, boolean atLeast) {
+		BitSet matches = new BitSet(size);
+
+		for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+			if (atLeast ? column[row] >= value : column[row] <= value) {
+				matches.set(row);
+			}
+		}
+
+		return matches;
+	}
+
+	// candidatesのうち、指定した時刻（0時からの分数）に営業している行
+	private BitSet openRows(BitSet candidates, int minutes) {
+		BitSet matches = new BitSet(size);
+
+		for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+			if (OpeningHours.isOpen(openingMinutes[row], closingMinutes[row], minutes)) {
+				matches.set(row);
+			}
+		}
+
+		return matches;
+	}
+
+	private BitSet rowsOf(Collection<Integer> restaurantIds) {
+		BitSet bitSet = new BitSet(size);
+
+		for (Integer restaurantId : restaurantIds) {
+			Integer row = rows.get(restaurantId);
+			if (row != null) {
+				bitSet.set(row);
+			}
+		}
+
+		return bitSet;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= ids.length) {
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, ids.length * 2);
+		ids = Arrays.copyOf(ids, newCapacity);
+		lowestPrices = Arrays.copyOf(lowestPrices, newCapacity);
+		highestPrices = Arrays.copyOf(highestPrices, newCapacity);
+		openingMinutes = Arrays.copyOf(openingMinutes, newCapacity);
+		closingMinutes = Arrays.copyOf(closingMinutes, newCapacity);
+		seatingCapacities = Arrays.copyOf(seatingCapacities, newCapacity);
+	}
+
+	private static BitSet[] newSlotBitmaps() {
+		BitSet[] slotBitmaps = new BitSet[OpeningHours.SLOTS];
+		for (int slot = 0; slot < slotBitmaps.length; slot++) {
+			slotBitmaps[slot] = new BitSet();
+		}
+		return slotBitmaps;
+	}
+
+	private static void setSlots(BitSet[] slotBitmaps, BitSet slots, int row) {
+		for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+			slotBitmaps[slot].set(row);
+		}
+	}
+
+	private static void clearSlots(BitSet[] slotBitmaps, int row) {
+		for (BitSet slotBitmap : slotBitmaps) {
+			slotBitmap.clear(row);
+		}
+	}
+
+	// 行ごとの定休日の曜日
+	private static Map<Integer, List<Integer>> toClosedDayIndexes(List<Object[]> regularHolidayPairs, List<RegularHoliday> regularHolidays,
+			                                                      Map<Integer, Integer> rows) {
+		Map<Integer, Integer> dayIndexes = new HashMap<>();
+		for (RegularHoliday regularHoliday : regularHolidays) {
+			if (regularHoliday.getDayIndex() != null) {
+				dayIndexes.put(regularHoliday.getId(), regularHoliday.getDayIndex());
+			}
+		}
+
+		Map<Integer, List<Integer>> closedDayIndexes = new HashMap<>();
+		for (Object[] pair : regularHolidayPairs) {
+			Integer row = rows.get((Integer) pair[0]);
+			Integer dayIndex = dayIndexes.get((Integer) pair[1]);
+			if (row != null && dayIndex != null) {
+				closedDayIndexes.computeIfAbsent(row, key -> new ArrayList<>()).add(dayIndex);
+			}
+		}
+
+		return closedDayIndexes;
+	}
+
+	private static void clearBits(Map<Integer, BitSet> bitmaps, int row) {
+		for (BitSet bitmap : bitmaps.values()) {
+			bitmap.clear(row);
+		}
+	}
+
+	private static Map<Integer, BitSet> toBitmaps(List<Object[]> pairs, Map<Integer, Integer> rows) {
+		Map<Integer, BitSet> bitmaps = new HashMap<>();
+
+		for (Object[] pair : pairs) {
+			Integer row = rows.get((Integer) pair[0]);
+			if (row != null) {
+				bitmaps.computeIfAbsent((Integer) pair[1], key -> new BitSet()).set(row);
+			}
+		}
+
+		return bitmaps;
+	}
+
+	private static Map<Integer, List<Integer>> toRegularHolidayIdsByDayIndex(List<RegularHoliday> regularHolidays) {
+		Map<Integer, List<Integer>> regularHolidayIds = new HashMap<>();
+
+		for (RegularHoliday regularHoliday : regularHolidays) {
+			if (regularHoliday.getDayIndex() != null) {
+				regularHolidayIds.computeIfAbsent(regularHoliday.getDayIndex(), key -> new ArrayList<>()).add(regularHoliday.getId());
+			}
+		}
+
+		return regularHolidayIds;
+	}
+
+	private static int valueOf(Integer value) {
+		return value != null ? value : 0;
+	}
+
+	// 作り直しで読み込んだ列（入れ替えるまで他のスレッドからは参照されない）
+	private record Snapshot(int size, int[] ids, int[] lowestPrices, int[] highestPrices, int[] openingMinutes, int[] closingMinutes,
+			                int[] seatingCapacities, BitSet live, Map<Integer, Integer> rows, Map<Integer, BitSet> categoryBitmaps,
+			                Map<Integer, BitSet> regularHolidayBitmaps, Map<Integer, List<Integer>> regularHolidayIdsByDayIndex,
+			                BitSet[] openSlotBitmaps) {
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.example.nagoyameshi.search;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 店舗一覧の絞り込み結果の件数（カテゴリ別・予算の上限別）
+@Getter
+@AllArgsConstructor
+public class RestaurantFacets {
+	private final long totalElements;
+	private final Map<Integer, Integer> categoryCounts;
+	private final Map<Integer, Integer> priceCounts;
+	
+	public int countOfCategory(Integer categoryId) {
+		return categoryCounts.getOrDefault(categoryId, 0);
+	}
+	
+	public int countOfPrice(Integer price) {
+		return priceCounts.getOrDefault(price, 0);
+	}
+
+}
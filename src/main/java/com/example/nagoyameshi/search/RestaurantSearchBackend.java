@@ -0,0 +1,23 @@
+package com.example.nagoyameshi.search;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.nagoyameshi.entity.Restaurant;
+
+// 店舗のキーワード検索の実装
+// nagoyameshi.search.backend で切り替える（memory：転置インデックス（既定）、fulltext：MySQLの全文検索、like：LIKE検索）
+public interface RestaurantSearchBackend {
+	// キーワードに一致する店舗の検索条件を返す（一覧の並び替えやページネーションと同じSQLで使う）
+	public Specification<Restaurant> toSpecification(String keyword);
+	
+	// キーワードに一致する店舗IDをメモリ上で求める（求められない場合はIDを持たない結果を返す）
+	public default KeywordMatch match(String keyword) {
+		return new KeywordMatch(keyword, null);
+	}
+	
+	// match()の結果から検索条件を返す
+	public default Specification<Restaurant> toSpecification(KeywordMatch keywordMatch) {
+		return toSpecification(keywordMatch.getKeyword());
+	}
+
+}
@@ -0,0 +1,248 @@
+package com.example.nagoyameshi.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+
+// 店舗名・住所・説明を対象にしたN-gramの転置インデックス
+@Component
+@ConditionalOnProperty(name = "nagoyameshi.search.backend", havingValue = "memory", matchIfMissing = true)
+public class RestaurantSearchIndex {
+	// 一致したフィールドごとのスコア
+	private static final int NAME_SCORE = 3;
+	private static final int ADDRESS_SCORE = 2;
+	private static final int DESCRIPTION_SCORE = 1;
+
+	private final RestaurantRepository restaurantRepository;
+
+	private final Map<Integer, Document> documents = new HashMap<>();
+	private final Map<String, Set<Integer>> postings = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public RestaurantSearchIndex(RestaurantRepository restaurantRepository) {
+		this.restaurantRepository = restaurantRepository;
+	}
+
+	// 起動時に全店舗からインデックスを作成する
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		List<Restaurant> restaurants = restaurantRepository.findAll();
+
+		lock.writeLock().lock();
+		try {
+			documents.clear();
+			postings.clear();
+			for (Restaurant restaurant : restaurants) {
+				add(new Document(restaurant));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 店舗の登録・更新・削除がコミットされたらインデックスに反映する
+	@TransactionalEventListener
+	public void onRestaurantChange(RestaurantChangeEvent restaurantChangeEvent) {
+		Integer restaurantId = restaurantChangeEvent.getRestaurantId();
+
+		if (restaurantChangeEvent.isDeleted()) {
+			remove(restaurantId);
+			return;
+		}
+
+		restaurantRepository.findById(restaurantId).ifPresent(this::put);
+	}
+
+	public void put(Restaurant restaurant) {
+		Document document = new Document(restaurant);
+
+		lock.writeLock().lock();
+		try {
+			removeDocument(restaurant.getId());
+			add(document);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Integer restaurantId) {
+		lock.writeLock().lock();
+		try {
+			removeDocument(restaurantId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// キーワードに一致する店舗IDを並び替え順に返す（同順位はスコアの高い順）
+	public List<Integer> search(String keyword, String order) {
+		List<String> terms = JapaneseTextNormalizer.normalizeTerms(keyword);
+		List<ScoredDocument> hits = new ArrayList<>();
+
+		if (terms.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		lock.readLock().lock();
+		try {
+			for (Integer candidateId : findCandidates(terms)) {
+				Document document = documents.get(candidateId);
+				int score = document.score(terms);
+				if (score > 0) {
+					hits.add(new ScoredDocument(document, score));
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		hits.sort(comparator(order));
+
+		List<Integer> restaurantIds = new ArrayList<>(hits.size());
+		for (ScoredDocument hit : hits) {
+			restaurantIds.add(hit.document().id);
+		}
+
+		return restaurantIds;
+	}
+
+	// 全てのN-gramを含む店舗を候補とする（最も短いポスティングリストから絞り込む）
+	private Set<Integer> findCandidates(List<String> terms) {
+		List<Set<Integer>> lists = new ArrayList<>();
+
+		for (String term : terms) {
+			for (String gram : JapaneseTextNormalizer.queryGrams(term)) {
+				Set<Integer> posting = postings.get(gram);
+				if (posting == null) {
+					return new HashSet<>();
+				}
+				lists.add(posting);
+			}
+		}
+
+		lists.sort(Comparator.comparingInt(Set::size));
+
+		Set<Integer> candidates = new HashSet<>(lists.get(0));
+		for (int i = 1; i < lists.size() && !candidates.isEmpty(); i++) {
+			candidates.retainAll(lists.get(i));
+		}
+
+		return candidates;
+	}
+
+	private void add(Document document) {
+		documents.put(document.id, document);
+
+		Set<String> grams = new HashSet<>();
+		grams.addAll(JapaneseTextNormalizer.ngrams(document.name));
+		grams.addAll(JapaneseTextNormalizer.ngrams(document.address));
+		grams.addAll(JapaneseTextNormalizer.ngrams(document.description));
+
+		for (String gram : grams) {
+			postings.computeIfAbsent(gram, key -> new HashSet<>()).add(document.id);
+		}
+	}
+
+	private void removeDocument(Integer restaurantId) {
+		Document document = documents.remove(restaurantId);
+
+		if (document == null) {
+			return;
+		}
+
+		Set<String> grams = new HashSet<>();
+		grams.addAll(JapaneseTextNormalizer.ngrams(document.name));
+		grams.addAll(JapaneseTextNormalizer.ngrams(document.address));
+		grams.addAll(JapaneseTextNormalizer.ngrams(document.description));
+
+		for (String gram : grams) {
+			Set<Integer> posting = postings.get(gram);
+			if (posting != null) {
+				posting.remove(restaurantId);
+				if (posting.isEmpty()) {
+					postings.remove(gram);
+				}
+			}
+		}
+	}
+
+	private Comparator<ScoredDocument> comparator(String order) {
+		Comparator<ScoredDocument> comparator;
+
+		if ("lowestPriceAsc".equals(order)) {
+			comparator = Comparator.comparingInt(hit -> hit.document().lowestPrice);
+		} else if ("highestPriceDesc".equals(order)) {
+			comparator = Comparator.comparingInt((ScoredDocument hit) -> hit.document().highestPrice).reversed();
+		} else {
+			comparator = Comparator.comparingLong((ScoredDocument hit) -> hit.document().createdAt).reversed();
+		}
+
+		return comparator.thenComparing(Comparator.comparingInt(ScoredDocument::score).reversed())
+				         .thenComparingInt(hit -> hit.document().id);
+	}
+
+	private record ScoredDocument(Document document, int score) {
+	}
+
+	private static class Document {
+		private final int id;
+		private final String name;
+		private final String address;
+		private final String description;
+		private final long createdAt;
+		private final int lowestPrice;
+		private final int highestPrice;
+
+		private Document(Restaurant restaurant) {
+			this.id = restaurant.getId();
+			this.name = JapaneseTextNormalizer.normalize(restaurant.getName());
+			this.address = JapaneseTextNormalizer.normalize(restaurant.getAddress());
+			this.description = JapaneseTextNormalizer.normalize(restaurant.getDescription());
+			// 登録直後はcreated_atがエンティティに反映されていないため現在時刻で代用する
+			this.createdAt = restaurant.getCreatedAt() != null ? restaurant.getCreatedAt().getTime() : System.currentTimeMillis();
+			this.lowestPrice = restaurant.getLowestPrice();
+			this.highestPrice = restaurant.getHighestPrice();
+		}
+
+		// 全ての語がいずれかのフィールドに含まれていればスコアを返す（含まれない語があれば0）
+		private int score(List<String> terms) {
+			int total = 0;
+
+			for (String term : terms) {
+				int score = 0;
+				if (name.contains(term)) {
+					score += NAME_SCORE;
+				}
+				if (address.contains(term)) {
+					score += ADDRESS_SCORE;
+				}
+				if (description.contains(term)) {
+					score += DESCRIPTION_SCORE;
+				}
+				if (score == 0) {
+					return 0;
+				}
+				total += score;
+			}
+
+			return total;
+		}
+	}
+
+}
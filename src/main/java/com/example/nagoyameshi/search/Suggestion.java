@@ -0,0 +1,20 @@
+package com.example.nagoyameshi.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 検索キーワードの入力候補
+@Getter
+@AllArgsConstructor
+public class Suggestion {
+	public static final String CATEGORY = "category";
+	public static final String AREA = "area";
+	public static final String RESTAURANT = "restaurant";
+	
+	// category・area・restaurantのいずれか
+	private final String type;
+	private final String label;
+	// 候補を選んだときの移動先
+	private final String url;
+
+}
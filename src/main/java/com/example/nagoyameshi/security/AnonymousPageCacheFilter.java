@@ -0,0 +1,252 @@
+package com.example.nagoyameshi.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.support.SessionFlashMapManager;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.example.nagoyameshi.event.CategoryChangeEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.event.ReviewChangeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+// 未ログインのユーザー（ROLE_ANONYMOUS）に表示する店舗一覧・店舗詳細のHTMLを、正規化したURLごとにgzip圧縮して保持する
+// 2回目以降は認証後のフィルタの段階で返し、コントローラーでの検索やテンプレートの描画を行わない
+// 容量はバイト数で上限を決め、CaffeineのW-TinyLFUで利用頻度の低いページから追い出す（1回しか検索されないキーワードのページで有用なページが押し出されない）
+// 店舗・カテゴリ・レビューの変更がコミットされたら該当するページを破棄し、お気に入り数など通知のない変更は一定時間で作り直す
+// Spring Securityのフィルタより後に登録されるため、ログイン中のユーザーは常に通常どおり描画される
+@Component
+public class AnonymousPageCacheFilter extends OncePerRequestFilter {
+	// 店舗一覧と店舗詳細だけを対象にする（入力候補のJSONなどは除く）
+	private static final Pattern CACHEABLE_PATH = Pattern.compile("^/restaurants(/\\d+)?$");
+	private static final String LISTING_PATH = "/restaurants";
+	// これより長いクエリ文字列のページは保持しない
+	private static final int MAX_QUERY_LENGTH = 512;
+	private static final String FLASH_MAPS_ATTRIBUTE = SessionFlashMapManager.class.getName() + ".FLASH_MAPS";
+
+	private final Cache<String, CachedPage> cache;
+	// 破棄のたびに進め、描画中に破棄されたページを保持しないようにする
+	private final AtomicLong generation = new AtomicLong();
+
+	public AnonymousPageCacheFilter(@Value("${nagoyameshi.page-cache.max-bytes:33554432}") long maxBytes,
+			                        @Value("${nagoyameshi.page-cache.ttl:60000}") long ttl) {
+		this.cache = Caffeine.newBuilder()
+				             .maximumWeight(maxBytes)
+				             .weigher((String key, CachedPage page) -> key.length() * 2 + page.body().length)
+				             .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+				             .build();
+	}
+
+	// 店舗の登録・更新・削除は、おすすめ・似ている店舗として他の店舗のページにも表示されるため全て破棄する
+	@TransactionalEventListener
+	public void onRestaurantChange(RestaurantChangeEvent restaurantChangeEvent) {
+		invalidateAll();
+	}
+
+	@TransactionalEventListener
+	public void onCategoryChange(CategoryChangeEvent categoryChangeEvent) {
+		invalidateAll();
+	}
+
+	// レビューは評価が変わるため、その店舗の詳細ページと一覧のページを破棄する
+	@TransactionalEventListener
+	public void onReviewChange(ReviewChangeEvent reviewChangeEvent) {
+		String detailPath = LISTING_PATH + "/" + reviewChangeEvent.getRestaurantId();
+
+		generation.incrementAndGet();
+		cache.asMap().keySet().removeIf(key -> key.equals(detailPath) || key.equals(LISTING_PATH) || key.startsWith(LISTING_PATH + "?"));
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !"GET".equals(request.getMethod()) || !CACHEABLE_PATH.matcher(pathOf(request)).matches();
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		String key = isAnonymous() && !hasFlashMessage(request) ? keyOf(request) : null;
+
+		if (key == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		CachedPage page = cache.getIfPresent(key);
+		if (page != null) {
+			write(page, request, response);
+			return;
+		}
+
+		long startGeneration = generation.get();
+		ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+
+		try {
+			filterChain.doFilter(request, responseWrapper);
+
+			CachedPage renderedPage = toCachedPage(responseWrapper);
+			if (renderedPage != null && generation.get() == startGeneration) {
+				cache.put(key, renderedPage);
+			}
+		} finally {
+			responseWrapper.copyBodyToResponse();
+		}
+	}
+
+	private void invalidateAll() {
+		generation.incrementAndGet();
+		cache.invalidateAll();
+	}
+
+	private static boolean isAnonymous() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication == null || authentication instanceof AnonymousAuthenticationToken;
+	}
+
+	// リダイレクト後のメッセージを表示するリクエストは対象外にする
+	private static boolean hasFlashMessage(HttpServletRequest request) {
+		HttpSession session = request.getSession(false);
+		if (session == null) {
+			return false;
+		}
+		Object flashMaps = session.getAttribute(FLASH_MAPS_ATTRIBUTE);
+		return flashMaps instanceof List<?> list && !list.isEmpty();
+	}
+
+	// パスとクエリパラメータ（名前順、値も並べ替え、空の値は除く）から作るキー（並び順や空の検索条件の違いで別のページとして保持しない）
+	private static String keyOf(HttpServletRequest request) {
+		Map<String, List<String>> parameters = new TreeMap<>();
+
+		for (Map.Entry<String, String[]> entry : request.getParameterMap().entrySet()) {
+			List<String> values = new ArrayList<>();
+			for (String value : entry.getValue()) {
+				if (value != null && !value.isBlank()) {
+					values.add(value.trim());
+				}
+			}
+			if (!values.isEmpty()) {
+				values.sort(null);
+				parameters.put(entry.getKey(), values);
+			}
+		}
+
+		StringBuilder query = new StringBuilder();
+		for (Map.Entry<String, List<String>> entry : parameters.entrySet()) {
+			for (String value : entry.getValue()) {
+				query.append(query.length() == 0 ? "" : "&")
+				     .append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8)).append('=')
+				     .append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+			}
+		}
+
+		if (query.length() > MAX_QUERY_LENGTH) {
+			return null;
+		}
+
+		return query.length() == 0 ? pathOf(request) : pathOf(request) + "?" + query;
+	}
+
+	private static String pathOf(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		return path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+	}
+
+	// 保持できるページ（正常に描画されたHTMLで、セッションを作らず、CSRFトークンを含まないもの）だけをgzip圧縮して返す
+	private static CachedPage toCachedPage(ContentCachingResponseWrapper response) throws IOException {
+		String contentType = response.getContentType();
+		byte[] body = response.getContentAsByteArray();
+
+		if (response.getStatus() != HttpStatus.OK.value() || contentType == null || !contentType.startsWith("text/html")
+				|| response.containsHeader(HttpHeaders.SET_COOKIE) || new String(body, StandardCharsets.UTF_8).contains("name=\"_csrf\"")) {
+			return null;
+		}
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(body);
+		}
+
+		String etag = response.getHeader(HttpHeaders.ETAG);
+		if (etag == null) {
+			etag = "W/\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+		}
+
+		return new CachedPage(compressed.toByteArray(), contentType, etag, response.getHeader(HttpHeaders.LAST_MODIFIED));
+	}
+
+	// gzipを受け付けるクライアントには圧縮したまま返す（受け付けない場合だけ展開する）
+	private static void write(CachedPage page, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setHeader(HttpHeaders.ETAG, page.etag());
+		if (page.lastModified() != null) {
+			response.setHeader(HttpHeaders.LAST_MODIFIED, page.lastModified());
+		}
+		response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+		if (matchesEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), page.etag())) {
+			response.setStatus(HttpStatus.NOT_MODIFIED.value());
+			return;
+		}
+
+		response.setContentType(page.contentType());
+
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+			response.setContentLength(page.body().length);
+			response.getOutputStream().write(page.body());
+			return;
+		}
+
+		try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(page.body()))) {
+			inputStream.transferTo(response.getOutputStream());
+		}
+	}
+
+	// If-None-Matchのいずれかと弱い比較で一致するか
+	private static boolean matchesEtag(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		String opaqueTag = etag.startsWith("W/") ? etag.substring(2) : etag;
+		return Arrays.stream(ifNoneMatch.split(","))
+				     .map(String::trim)
+				     .anyMatch(tag -> tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaqueTag));
+	}
+
+	// gzip圧縮したHTMLと、返すときに付けるヘッダー
+	private record CachedPage(byte[] body, String contentType, String etag, String lastModified) {
+	}
+
+}
@@ -5,6 +5,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -18,7 +19,7 @@ public class WebSecurityConfig {
 	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception{
 		http
 		    .authorizeHttpRequests((requests) -> requests
-		    	.requestMatchers("/css/**", "/images/**", "/js/**", "/storage/**", "/", "/signup/**").permitAll() // 全てのユーザーにアクセスを許可するURL
+		    	.requestMatchers("/css/**", "/images/**", "/js/**", "/", "/signup/**").permitAll() // 全てのユーザーにアクセスを許可するURL
 		    	.requestMatchers("/restaurants/{restaurantId}/reviews/**", "/favorites/**", "/restaurants/{restaurantId}/favorites/**", "/reservations/**", "/restaurants/{restaurantId}/reservations/**").hasAnyRole("FREE_MEMBER", "PAID_MEMBER")
 		    	.requestMatchers("/restaurants/**", "/company", "/terms").hasAnyRole("ANONYMOUS", "FREE_MEMBER", "PAID_MEMBER")
 		    	.requestMatchers("/admin/**").hasRole("ADMIN") // 管理者にのみアクセスを許可するURL
@@ -39,6 +40,12 @@ public class WebSecurityConfig {
 		return http.build();
 	}
 	
+	// 店舗画像（/storage/**）はセキュリティのフィルタを通さずに配信する（認証やセッションを使わないため、ページのリクエストとフィルタの処理を奪い合わないようにする）
+	@Bean
+	public WebSecurityCustomizer webSecurityCustomizer() {
+		return (web) -> web.ignoring().requestMatchers("/storage/**");
+	}
+	
 	@Bean
 	public PasswordEncoder passwordEncoder() {
 		return new BCryptPasswordEncoder();
@@ -0,0 +1,31 @@
+package com.example.nagoyameshi.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Hibernateの2次キャッシュ・クエリキャッシュのヒット・ミスの件数（起動時からの累計）
+@Getter
+@AllArgsConstructor
+public class CacheStatistics {
+	private final long secondLevelCacheHits;
+	private final long secondLevelCacheMisses;
+	private final long secondLevelCachePuts;
+	private final long queryCacheHits;
+	private final long queryCacheMisses;
+	private final long queryCachePuts;
+
+	// 2次キャッシュのヒット率（％）
+	public long getSecondLevelCacheHitRatio() {
+		return ratioOf(secondLevelCacheHits, secondLevelCacheMisses);
+	}
+
+	// クエリキャッシュのヒット率（％）
+	public long getQueryCacheHitRatio() {
+		return ratioOf(queryCacheHits, queryCacheMisses);
+	}
+
+	private static long ratioOf(long hits, long misses) {
+		return hits + misses > 0 ? hits * 100 / (hits + misses) : 0;
+	}
+
+}
@@ -4,6 +4,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.event.CategoryChangeEventPublisher;
 import com.example.nagoyameshi.form.CategoryEditForm;
 import com.example.nagoyameshi.form.CategoryRegisterForm;
 import com.example.nagoyameshi.repository.CategoryRepository;
@@ -12,10 +13,13 @@ import com.example.nagoyameshi.repository.CategoryRepository;
 public class CategoryService {
 	private final CategoryRepository categoryRepository;
 	private final CategoryRestaurantService categoryRestaurantService;
+	private final CategoryChangeEventPublisher categoryChangeEventPublisher;
 	
-	public CategoryService(CategoryRepository categoryRepository, CategoryRestaurantService categoryRestaurantService) {
+	public CategoryService(CategoryRepository categoryRepository, CategoryRestaurantService categoryRestaurantService,
+			               CategoryChangeEventPublisher categoryChangeEventPublisher) {
 		this.categoryRepository = categoryRepository;
 		this.categoryRestaurantService = categoryRestaurantService;
+		this.categoryChangeEventPublisher = categoryChangeEventPublisher;
 	}
 	
 	@Transactional
@@ -25,6 +29,7 @@ public class CategoryService {
 		category.setName(categoryRegisterForm.getName());
 		
 		categoryRepository.save(category);
+		categoryChangeEventPublisher.publishCategoryChangeEvent(category.getId());
 	}
 	
 	@Transactional
@@ -34,12 +39,16 @@ public class CategoryService {
 		category.setName(categoryEditForm.getName());
 		
 		categoryRepository.save(category);
+		categoryChangeEventPublisher.publishCategoryChangeEvent(category.getId());
 	}
 	
 	@Transactional
 	public void delete(Category category) {
+		Integer categoryId = category.getId();
+		
 		categoryRestaurantService.deleteByCategory(category);
 		categoryRepository.delete(category);
+		categoryChangeEventPublisher.publishCategoryDeleteEvent(categoryId);
 	}
 
 }
@@ -0,0 +1,213 @@
+package com.example.nagoyameshi.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// 「この店舗をお気に入りに追加した人は、こんな店舗も追加しています」の店舗を、favoritesテーブルから事前に求めておく
+// 店舗ごとに共にお気に入りに追加された回数（共起数）を数え、コサイン類似度の上位TOP_K件を店舗IDを添字にした配列に保持する
+// 店舗詳細ページは配列を参照するだけで済み、表示のたびにfavoritesを自己結合しない
+@Component
+public class CoFavoriteRecommender {
+	private static final String FAVORITE_SQL = "SELECT user_id, restaurant_id FROM favorites ORDER BY user_id, id DESC";
+	public static final int TOP_K = 6;
+	// お気に入りがこれより多い会員は新しいものだけを使う（組み合わせの数が件数の2乗で増えるため）
+	private static final int MAX_FAVORITES_PER_USER = 200;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final int parallelism;
+
+	// 店舗IDを添字にした、おすすめの店舗IDの配列（再計算のたびに丸ごと差し替える）
+	private volatile int[][] neighbours = new int[0][];
+
+	public CoFavoriteRecommender(JdbcTemplate jdbcTemplate,
+			                     @Value("${nagoyameshi.recommendation.parallelism:4}") int parallelism) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.parallelism = parallelism;
+	}
+
+	// 起動時と、1時間ごとに求め直す
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(cron = "${nagoyameshi.recommendation.cron:0 0 * * * *}")
+	public void rebuild() {
+		Favorites favorites = loadFavorites();
+		int size = favorites.maxRestaurantId + 1;
+		int[][] result = new int[size][];
+
+		// 店舗を並列数ごとに振り分け、各スレッドは自分の担当の店舗の行だけを求める（書き込む添字が重ならないため同期は不要）
+		IntStream.range(0, parallelism).parallel().forEach(worker -> {
+			int[] counts = new int[size];
+			int[] touched = new int[size];
+
+			for (int restaurantId = worker; restaurantId < size; restaurantId += parallelism) {
+				if (favorites.userCounts[restaurantId] > 0) {
+					result[restaurantId] = topNeighbours(favorites, restaurantId, counts, touched);
+				}
+			}
+		});
+
+		neighbours = result;
+	}
+
+	// おすすめの店舗ID（類似度の高い順、最大TOP_K件）
+	public List<Integer> findRecommendedRestaurantIds(Integer restaurantId) {
+		int[][] current = neighbours;
+		List<Integer> restaurantIds = new ArrayList<>();
+
+		if (restaurantId == null || restaurantId < 0 || restaurantId >= current.length || current[restaurantId] == null) {
+			return restaurantIds;
+		}
+
+		for (int neighbour : current[restaurantId]) {
+			restaurantIds.add(neighbour);
+		}
+
+		return restaurantIds;
+	}
+
+	// restaurantIdをお気に入りに追加した会員のお気に入りを辿って共起数を数え、類似度の上位を返す
+	// countsとtouchedはスレッドごとに使い回す（数えた店舗だけを0に戻す）
+	private int[] topNeighbours(Favorites favorites, int restaurantId, int[] counts, int[] touched) {
+		int touchedCount = 0;
+
+		for (int i = favorites.restaurantStarts[restaurantId]; i < favorites.restaurantStarts[restaurantId + 1]; i++) {
+			int user = favorites.restaurantUsers[i];
+			for (int j = favorites.userStarts[user]; j < favorites.userStarts[user + 1]; j++) {
+				int other = favorites.userRestaurants[j];
+				if (other != restaurantId && counts[other]++ == 0) {
+					touched[touchedCount++] = other;
+				}
+			}
+		}
+
+		// 上位TOP_K件をスコアの降順に保つ（件数が少ないため挿入で並べる）
+		int[] topIds = new int[TOP_K];
+		double[] topScores = new double[TOP_K];
+		int topCount = 0;
+
+		for (int t = 0; t < touchedCount; t++) {
+			int other = touched[t];
+			double score = counts[other] / Math.sqrt((double) favorites.userCounts[restaurantId] * favorites.userCounts[other]);
+			counts[other] = 0;
+
+			if (topCount == TOP_K && !isBetter(score, other, topScores[TOP_K - 1], topIds[TOP_K - 1])) {
+				continue;
+			}
+
+			int position = Math.min(topCount, TOP_K - 1);
+			while (position > 0 && isBetter(score, other, topScores[position - 1], topIds[position - 1])) {
+				topScores[position] = topScores[position - 1];
+				topIds[position] = topIds[position - 1];
+				position--;
+			}
+			topScores[position] = score;
+			topIds[position] = other;
+			topCount = Math.min(topCount + 1, TOP_K);
+		}
+
+		return Arrays.copyOf(topIds, topCount);
+	}
+
+	// スコアが高い方、同じなら店舗IDが小さい方を上位とする
+	private static boolean isBetter(double score, int restaurantId, double otherScore, int otherRestaurantId) {
+		return score > otherScore || (score == otherScore && restaurantId < otherRestaurantId);
+	}
+
+	// お気に入りを会員ごと・店舗ごとの隣接リスト（CSR形式）にして読み込む
+	private Favorites loadFavorites() {
+		IntArray users = new IntArray();
+		IntArray restaurants = new IntArray();
+		int[] lastUserId = { -1 };
+		int[] favoritesOfUser = { 0 };
+
+		// 会員ごとに新しい順に並んでいるので、会員が変わるまでの件数で上限を数える
+		jdbcTemplate.query(FAVORITE_SQL, resultSet -> {
+			int userId = resultSet.getInt(1);
+			if (userId != lastUserId[0]) {
+				lastUserId[0] = userId;
+				favoritesOfUser[0] = 0;
+			}
+			if (favoritesOfUser[0]++ < MAX_FAVORITES_PER_USER) {
+				users.add(userId);
+				restaurants.add(resultSet.getInt(2));
+			}
+		});
+
+		int userCount = 0;
+		int maxRestaurantId = 0;
+		for (int i = 0; i < users.size; i++) {
+			if (i == 0 || users.values[i] != users.values[i - 1]) {
+				userCount++;
+			}
+			maxRestaurantId = Math.max(maxRestaurantId, restaurants.values[i]);
+		}
+
+		// 会員IDを0からの連番に振り直して詰める
+		Favorites favorites = new Favorites(userCount, maxRestaurantId, users.size);
+		int user = -1;
+		for (int i = 0; i < users.size; i++) {
+			if (i == 0 || users.values[i] != users.values[i - 1]) {
+				favorites.userStarts[++user] = i;
+			}
+			favorites.userRestaurants[i] = restaurants.values[i];
+			favorites.userCounts[restaurants.values[i]]++;
+		}
+		favorites.userStarts[userCount] = users.size;
+
+		// 店舗ごとの会員の一覧（各店舗の開始位置を求めてから詰める）
+		for (int restaurantId = 0; restaurantId <= maxRestaurantId; restaurantId++) {
+			favorites.restaurantStarts[restaurantId + 1] = favorites.restaurantStarts[restaurantId] + favorites.userCounts[restaurantId];
+		}
+		int[] positions = Arrays.copyOf(favorites.restaurantStarts, maxRestaurantId + 1);
+		for (user = 0; user < userCount; user++) {
+			for (int j = favorites.userStarts[user]; j < favorites.userStarts[user + 1]; j++) {
+				favorites.restaurantUsers[positions[favorites.userRestaurants[j]]++] = user;
+			}
+		}
+
+		return favorites;
+	}
+
+	private static class Favorites {
+		private final int maxRestaurantId;
+		// 会員ごとのお気に入りの店舗ID（userStarts[会員]～userStarts[会員 + 1]の範囲）
+		private final int[] userStarts;
+		private final int[] userRestaurants;
+		// 店舗ごとのお気に入りに追加した会員（restaurantStarts[店舗ID]～restaurantStarts[店舗ID + 1]の範囲）
+		private final int[] restaurantStarts;
+		private final int[] restaurantUsers;
+		// 店舗ごとのお気に入りに追加した会員数
+		private final int[] userCounts;
+
+		private Favorites(int userCount, int maxRestaurantId, int favoriteCount) {
+			this.maxRestaurantId = maxRestaurantId;
+			this.userStarts = new int[userCount + 1];
+			this.userRestaurants = new int[favoriteCount];
+			this.restaurantStarts = new int[maxRestaurantId + 2];
+			this.restaurantUsers = new int[favoriteCount];
+			this.userCounts = new int[maxRestaurantId + 1];
+		}
+	}
+
+	// 件数が事前にわからない読み込み用の可変長のint配列
+	private static class IntArray {
+		private int[] values = new int[1024];
+		private int size;
+
+		private void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+	}
+
+}
@@ -2,17 +2,23 @@ package com.example.nagoyameshi.service;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.example.nagoyameshi.entity.Company;
 import com.example.nagoyameshi.form.CompanyEditForm;
 import com.example.nagoyameshi.repository.CompanyRepository;
 
+import jakarta.persistence.EntityManagerFactory;
+
 @Service
 public class CompanyService {
 	private final CompanyRepository companyRepository;
+	private final EntityManagerFactory entityManagerFactory;
 	
-	public CompanyService(CompanyRepository companyRepository) {
+	public CompanyService(CompanyRepository companyRepository, EntityManagerFactory entityManagerFactory) {
 		this.companyRepository = companyRepository;
+		this.entityManagerFactory = entityManagerFactory;
 	}
 	
 	@Transactional
@@ -29,6 +35,15 @@ public class CompanyService {
         company.setNumberOfEmployees(companyEditForm.getNumberOfEmployees());
         
         companyRepository.save(company);
+        
+        // updated_atはデータベースが設定し、2次キャッシュには反映されないため、コミット後にキャッシュから取り除いて次回はデータベースから読み直す
+        Integer companyId = company.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(Company.class, companyId);
+            }
+        });
 	}
 
 }
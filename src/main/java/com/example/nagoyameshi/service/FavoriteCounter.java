@@ -0,0 +1,95 @@
+package com.example.nagoyameshi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.nagoyameshi.event.FavoriteChangeEvent;
+
+import jakarta.annotation.PreDestroy;
+
+// 店舗ごとのお気に入り数の増減をメモリ上で数え、数秒ごとにまとめてrestaurants.favorite_countに加算する
+// お気に入りの追加・削除のたびに店舗の行を更新しないため、1つの店舗に追加が集中しても行ロックの待ちが発生しない
+@Component
+public class FavoriteCounter {
+	// updated_atを同じ値で指定してON UPDATEで進めない（お気に入り数だけの変更で店舗ページのETagやカードのキャッシュを無効にしない）
+	private static final String UPDATE_SQL = "UPDATE restaurants SET favorite_count = favorite_count + ?, updated_at = updated_at WHERE id = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+
+	public FavoriteCounter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	// お気に入りの追加・削除がコミットされたら数える（ロールバックされた場合は数えない）
+	// flush()が加算し終えたカウンターを取り除くのと同時に数えないよう、マップのロックの中で加算する
+	@TransactionalEventListener
+	public void onFavoriteChange(FavoriteChangeEvent favoriteChangeEvent) {
+		counters.compute(favoriteChangeEvent.getRestaurantId(), (restaurantId, counter) -> {
+			Counter current = counter != null ? counter : new Counter();
+			current.total.add(favoriteChangeEvent.getDelta());
+			return current;
+		});
+	}
+
+	// 前回から増減した店舗の分を1回のバッチで加算する
+	// バッチは1つのトランザクションで実行し、コミットした場合だけ加算済みにする（失敗した場合はどの店舗も加算されず、次回にまとめて加算する）
+	@Scheduled(fixedDelayString = "${nagoyameshi.favorite-count.flush-interval:5000}")
+	@PreDestroy
+	public synchronized void flush() {
+		List<Integer> restaurantIds = new ArrayList<>();
+		List<Long> deltas = new ArrayList<>();
+		List<Object[]> batchArgs = new ArrayList<>();
+
+		for (Map.Entry<Integer, Counter> entry : counters.entrySet()) {
+			Counter counter = entry.getValue();
+			// 加算済みの値との差だけを書き込む（集計中の増減は次回に回る）
+			long delta = counter.total.sum() - counter.flushed;
+			if (delta != 0) {
+				restaurantIds.add(entry.getKey());
+				deltas.add(delta);
+				batchArgs.add(new Object[] { delta, entry.getKey() });
+			} else {
+				// 増減のなくなったカウンターは取り除き、マップが店舗の数だけ増え続けないようにする（次に数えるときに作り直す）
+				counters.computeIfPresent(entry.getKey(), (restaurantId, current) -> current.total.sum() == current.flushed ? null : current);
+			}
+		}
+
+		if (batchArgs.isEmpty()) {
+			return;
+		}
+
+		transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, batchArgs));
+
+		// カウンターを取り除くのはflush()の中で増減のないものだけのため、加算した店舗のカウンターは残っている
+		for (int i = 0; i < restaurantIds.size(); i++) {
+			counters.get(restaurantIds.get(i)).flushed += deltas.get(i);
+		}
+	}
+
+	// まだrestaurants.favorite_countに加算していない増減があるかどうか
+	public boolean hasPendingChanges(Integer restaurantId) {
+		Counter counter = counters.get(restaurantId);
+		return counter != null && counter.total.sum() != counter.flushed;
+	}
+
+	// 店舗ごとの増減の累計（flush()は加算を止めずにsum()で読める）と、そのうち加算済みの値
+	private static class Counter {
+		private final LongAdder total = new LongAdder();
+		// flush()でのみ書き込む
+		private volatile long flushed;
+	}
+
+}
@@ -6,14 +6,17 @@ import org.springframework.transaction.annotation.Transactional;
 import com.example.nagoyameshi.entity.Favorite;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.User;
+import com.example.nagoyameshi.event.FavoriteChangeEventPublisher;
 import com.example.nagoyameshi.repository.FavoriteRepository;
 
 @Service
 public class FavoriteService {
 	private final FavoriteRepository favoriteRepository;
+	private final FavoriteChangeEventPublisher favoriteChangeEventPublisher;
 	
-	public FavoriteService(FavoriteRepository favoriteRepository) {
+	public FavoriteService(FavoriteRepository favoriteRepository, FavoriteChangeEventPublisher favoriteChangeEventPublisher) {
 		this.favoriteRepository = favoriteRepository;
+		this.favoriteChangeEventPublisher = favoriteChangeEventPublisher;
 	}
 	
 	@Transactional
@@ -24,11 +27,17 @@ public class FavoriteService {
 		favorite.setUser(user);
 		
 		favoriteRepository.save(favorite);
+		
+		// 店舗のお気に入り数はFavoriteCounterがまとめて加算する
+		favoriteChangeEventPublisher.publishFavoriteAddEvent(restaurant.getId());
 	}
 	
 	@Transactional
 	public void delete(Favorite favorite) {
+		Integer restaurantId = favorite.getRestaurant().getId();
+		
 		favoriteRepository.delete(favorite);
+		favoriteChangeEventPublisher.publishFavoriteRemoveEvent(restaurantId);
 	}
 	
 	@Transactional
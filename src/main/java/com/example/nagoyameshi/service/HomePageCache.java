@@ -0,0 +1,122 @@
+package com.example.nagoyameshi.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.CategoryChangeEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.repository.CategoryRepository;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+
+// トップページの表示内容をメモリ上のスナップショットに持ち、表示のたびにデータベースを読まないようにする
+// 店舗・カテゴリの変更がコミットされたら作り直して丸ごと差し替える（作り直している間や失敗した場合は古いスナップショットを表示する）
+// お気に入り数による人気順はイベントなしに変わるため、一定時間を過ぎたスナップショットも裏で作り直す
+@Component
+public class HomePageCache {
+	private final RestaurantRepository restaurantRepository;
+	private final CategoryRepository categoryRepository;
+	private final TransactionTemplate transactionTemplate;
+	// スナップショットを作り直すまでの時間（ミリ秒）
+	private final long maxAge;
+
+	private volatile HomePageSnapshot snapshot;
+	private final AtomicBoolean rebuilding = new AtomicBoolean();
+	// 作り直している間に変更があったか（あればもう一度作り直す）
+	private volatile boolean pending;
+
+	public HomePageCache(RestaurantRepository restaurantRepository, CategoryRepository categoryRepository, PlatformTransactionManager transactionManager,
+			             @Value("${nagoyameshi.home-page.max-age:60000}") long maxAge) {
+		this.restaurantRepository = restaurantRepository;
+		this.categoryRepository = categoryRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		// コミット後のイベントから呼ばれた場合も、コミットしたトランザクションの永続性コンテキストに参加せず新しく読み直す
+		// （参加すると保存したままのエンティティが返り、登録直後はcreated_at・updated_atやカテゴリがnull、更新後はupdated_atが古いまま）
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.maxAge = maxAge;
+	}
+
+	// 起動時に作成する
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		refresh();
+	}
+
+	// 店舗の登録・更新・削除がコミットされたら作り直す
+	@TransactionalEventListener
+	public void onRestaurantChange(RestaurantChangeEvent restaurantChangeEvent) {
+		refresh();
+	}
+
+	// カテゴリの登録・更新・削除がコミットされたら作り直す
+	@TransactionalEventListener
+	public void onCategoryChange(CategoryChangeEvent categoryChangeEvent) {
+		refresh();
+	}
+
+	// 現在のスナップショット（起動直後でまだない場合だけ、その場で作成する）
+	// 古くなっていれば今のスナップショットを返しつつ、裏で作り直す
+	public HomePageSnapshot getSnapshot() {
+		HomePageSnapshot current = snapshot;
+
+		if (current == null) {
+			refresh();
+			current = snapshot;
+			return current != null ? current : build();
+		}
+
+		if (System.currentTimeMillis() - current.getBuiltAt() > maxAge && !rebuilding.get()) {
+			CompletableFuture.runAsync(this::refresh);
+		}
+
+		return current;
+	}
+
+	// 作り直して差し替える（既に作り直している場合は、終わったあとにもう一度作り直すよう印を付けるだけにする）
+	private void refresh() {
+		pending = true;
+
+		while (pending && rebuilding.compareAndSet(false, true)) {
+			try {
+				pending = false;
+				snapshot = build();
+			} finally {
+				rebuilding.set(false);
+			}
+		}
+	}
+
+	// 新しいトランザクションの中で店舗のカテゴリまで読み込み、トランザクションの外でも表示できるようにする
+	private HomePageSnapshot build() {
+		return transactionTemplate.execute(status -> {
+			List<Restaurant> newRestaurants = restaurantRepository.findTop6ByOrderByCreatedAtDesc();
+			List<Restaurant> popularRestaurants = restaurantRepository.findTop6ByOrderByFavoriteCountDescIdAsc();
+			List<Category> categories = categoryRepository.findAll();
+
+			initializeCategories(newRestaurants);
+			initializeCategories(popularRestaurants);
+
+			return new HomePageSnapshot(List.copyOf(newRestaurants), List.copyOf(popularRestaurants), List.copyOf(categories), System.currentTimeMillis());
+		});
+	}
+
+	private static void initializeCategories(List<Restaurant> restaurants) {
+		for (Restaurant restaurant : restaurants) {
+			restaurant.getCategories().forEach(Hibernate::initialize);
+		}
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.example.nagoyameshi.service;
+
+import java.util.List;
+
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Restaurant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// トップページに表示する店舗・カテゴリのスナップショット（作成後は変更しない）
+// 店舗のカテゴリは作成時に読み込み済みのため、トランザクションの外でも参照できる
+@Getter
+@AllArgsConstructor
+public class HomePageSnapshot {
+	private final List<Restaurant> newRestaurants;
+	private final List<Restaurant> popularRestaurants;
+	private final List<Category> categories;
+	// 作成した時刻（System.currentTimeMillis()）
+	private final long builtAt;
+
+}
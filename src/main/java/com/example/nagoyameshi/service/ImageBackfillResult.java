@@ -0,0 +1,23 @@
+package com.example.nagoyameshi.service;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 既存の店舗画像のサイズ違いの一括作成の進捗・結果
+@Getter
+@AllArgsConstructor
+public class ImageBackfillResult {
+	private final LocalDateTime startedAt;
+	// 対象の画像の数
+	private final int totalImages;
+	// サイズ違いを作成した画像の数
+	private final int processedImages;
+	// 作成できなかった画像の数（ファイルがない、画像の形式に対応していないなど。理由はログに出力する）
+	private final int failedImages;
+	private final long elapsedMillis;
+	// 実行中の場合はtrue（件数はその時点までのもの）
+	private final boolean running;
+
+}
@@ -0,0 +1,30 @@
+package com.example.nagoyameshi.service;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 店舗の集計値の再計算の進捗・結果
+@Getter
+@AllArgsConstructor
+public class ReconciliationResult {
+	private final LocalDateTime startedAt;
+	// 走査したレビュー・お気に入りの行数
+	private final long scannedRows;
+	// 集計値がずれていて書き直した店舗数
+	private final int updatedRestaurants;
+	// 再計算中に更新されたため書き直さなかった店舗数（次回の再計算で直す）
+	private final int skippedRestaurants;
+	private final long elapsedMillis;
+	// 走査し終えたIDの範囲の割合（%）
+	private final int progressPercent;
+	// 実行中の場合はtrue（走査行数はその時点までのもの。修正した店舗数は終わるまで0）
+	private final boolean running;
+
+	// 1秒あたりの走査行数
+	public long getRowsPerSecond() {
+		return elapsedMillis > 0 ? scannedRows * 1000 / elapsedMillis : scannedRows;
+	}
+
+}
@@ -0,0 +1,347 @@
+package com.example.nagoyameshi.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+// レビュー・お気に入りから店舗の集計値（評価の合計・件数・平均・評価ごとの件数、お気に入り数）を求め直し、ずれている店舗だけを書き直す
+// 手作業のSQLや失敗したトランザクションで集計値がずれても、定期的に元のテーブルと一致させる
+// 再計算はこのクラス専用のFork/Joinプールで実行し、呼び出したスレッドでは待たない
+@Service
+public class RestaurantAggregateReconciler {
+	private static final Logger logger = LoggerFactory.getLogger(RestaurantAggregateReconciler.class);
+	private static final String REVIEW_SCAN_SQL = "SELECT restaurant_id, score FROM reviews WHERE id BETWEEN ? AND ?";
+	private static final String FAVORITE_SCAN_SQL = "SELECT restaurant_id FROM favorites WHERE id BETWEEN ? AND ?";
+	private static final String RESTAURANT_SQL = "SELECT id, rating_sum, rating_count, rating_average, rating_1_count, rating_2_count, rating_3_count, "
+			                                   + "rating_4_count, rating_5_count, favorite_count FROM restaurants";
+	// 読み込んだときの値のままの店舗だけを書き直す（再計算中にレビューやお気に入りが書き込まれた店舗は次回に回す）
+	private static final String UPDATE_SQL = "UPDATE restaurants SET rating_sum = ?, rating_count = ?, rating_average = ?, rating_1_count = ?, rating_2_count = ?, "
+			                               + "rating_3_count = ?, rating_4_count = ?, rating_5_count = ?, favorite_count = ? "
+			                               + "WHERE id = ? AND rating_sum = ? AND rating_count = ? AND rating_1_count = ? AND rating_2_count = ? "
+			                               + "AND rating_3_count = ? AND rating_4_count = ? AND rating_5_count = ? AND favorite_count = ?";
+	// 1回のバッチで書き直す店舗数（行ロックを短く保つため、バッチごとに自動コミットする）
+	private static final int BATCH_SIZE = 500;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final FavoriteCounter favoriteCounter;
+	// 1つのパーティションで走査するIDの範囲
+	private final int partitionSize;
+	private final ForkJoinPool pool;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+	// 実行中の再計算の進捗（実行中でなければnull）と、最後に終わった再計算の結果
+	private volatile Progress progress;
+	private volatile ReconciliationResult lastResult;
+
+	public RestaurantAggregateReconciler(JdbcTemplate jdbcTemplate, FavoriteCounter favoriteCounter,
+			                             @Value("${nagoyameshi.reconciliation.partition-size:100000}") int partitionSize,
+			                             @Value("${nagoyameshi.reconciliation.parallelism:4}") int parallelism) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.favoriteCounter = favoriteCounter;
+		this.partitionSize = partitionSize;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	// 毎日アクセスの少ない時間帯に実行する
+	@Scheduled(cron = "${nagoyameshi.reconciliation.cron:0 0 4 * * *}", zone = "Asia/Tokyo")
+	public void scheduledReconcile() {
+		reconcile();
+	}
+
+	// 再計算をワーカーのプールで始める（既に実行中の場合は何もせずfalseを返す）
+	// 呼び出したスレッドでは待たず、進捗と結果はgetLastResult()で確認する
+	public boolean reconcile() {
+		if (!running.compareAndSet(false, true)) {
+			return false;
+		}
+
+		Progress current = new Progress(LocalDateTime.now(), System.nanoTime());
+		progress = current;
+
+		try {
+			pool.execute(() -> {
+				try {
+					lastResult = run(current);
+				} catch (RuntimeException e) {
+					logger.error("集計値の再計算が中断されました", e);
+				} finally {
+					progress = null;
+					running.set(false);
+				}
+			});
+		} catch (RuntimeException e) {
+			progress = null;
+			running.set(false);
+			throw e;
+		}
+
+		return true;
+	}
+
+	// 実行中ならその時点の進捗、そうでなければ最後に終わった再計算の結果（まだ実行していなければnull）
+	public ReconciliationResult getLastResult() {
+		Progress current = progress;
+		return current != null ? current.toResult() : lastResult;
+	}
+
+	public boolean isRunning() {
+		return running.get();
+	}
+
+	private ReconciliationResult run(Progress current) {
+		// メモリ上のお気に入り数の増減を書き込んでから、走査より先に現在の値を読み込み、書き直すときの比較に使う
+		favoriteCounter.flush();
+		List<Row> rows = jdbcTemplate.query(RESTAURANT_SQL, (resultSet, rowNum) -> new Row(resultSet.getInt(1),
+				new int[] { resultSet.getInt(2), resultSet.getInt(3), resultSet.getInt(5), resultSet.getInt(6), resultSet.getInt(7),
+				            resultSet.getInt(8), resultSet.getInt(9), resultSet.getInt(10) },
+				resultSet.getBigDecimal(4)));
+
+		int size = 1;
+		for (Row row : rows) {
+			size = Math.max(size, row.id() + 1);
+		}
+
+		Aggregates aggregates = scan(size, current);
+		int[] results = write(rows, aggregates);
+
+		long elapsedMillis = (System.nanoTime() - current.startNanos) / 1_000_000;
+		return new ReconciliationResult(current.startedAt, aggregates.scannedRows, results[0], results[1], elapsedMillis, 100, false);
+	}
+
+	// reviewsとfavoritesをIDの範囲で分割し、Fork/Joinプールで並列に集計する
+	// ワーカーごとに1つの集計値に加算し、最後にワーカーの数だけ合算する（区間ごとに店舗数分の配列を確保・合算しない）
+	// プールのワーカーのスレッドで呼び出す
+	private Aggregates scan(int size, Progress current) {
+		long reviewFromId = minId("reviews");
+		long reviewToId = maxId("reviews");
+		long favoriteFromId = minId("favorites");
+		long favoriteToId = maxId("favorites");
+		current.totalIds = Math.max(0, reviewToId - reviewFromId + 1) + Math.max(0, favoriteToId - favoriteFromId + 1);
+
+		Map<Thread, Aggregates> workers = new ConcurrentHashMap<>();
+		ForkJoinTask.invokeAll(new ScanTask(Source.REVIEWS, size, reviewFromId, reviewToId, workers, current),
+		                       new ScanTask(Source.FAVORITES, size, favoriteFromId, favoriteToId, workers, current));
+
+		Aggregates aggregates = new Aggregates(size);
+		for (Aggregates worker : workers.values()) {
+			aggregates.merge(worker);
+		}
+
+		return aggregates;
+	}
+
+	private long minId(String table) {
+		Long id = jdbcTemplate.queryForObject("SELECT MIN(id) FROM " + table, Long.class);
+		return id != null ? id : 1;
+	}
+
+	private long maxId(String table) {
+		Long id = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+		return id != null ? id : 0;
+	}
+
+	// 集計値がずれている店舗だけをバッチで書き直し、{書き直した店舗数, 書き直さなかった店舗数}を返す
+	private int[] write(List<Row> rows, Aggregates aggregates) {
+		List<Object[]> batchArgs = new ArrayList<>();
+		int skipped = 0;
+
+		for (Row row : rows) {
+			int[] actual = aggregates.valuesOf(row.id());
+			BigDecimal average = actual[1] > 0 ? BigDecimal.valueOf(actual[0]).divide(BigDecimal.valueOf(actual[1]), 2, RoundingMode.HALF_UP)
+					                           : BigDecimal.ZERO;
+
+			if (Arrays.equals(actual, row.values()) && average.compareTo(row.average()) == 0) {
+				continue;
+			}
+			
+			// まだ加算していないお気に入り数の増減がある店舗は、走査結果と二重に数えないよう次回に回す
+			if (favoriteCounter.hasPendingChanges(row.id())) {
+				skipped++;
+				continue;
+			}
+
+			Object[] args = new Object[18];
+			args[0] = actual[0];
+			args[1] = actual[1];
+			args[2] = average;
+			for (int i = 2; i < actual.length; i++) {
+				args[i + 1] = actual[i];
+			}
+			args[9] = row.id();
+			for (int i = 0; i < row.values().length; i++) {
+				args[10 + i] = row.values()[i];
+			}
+			batchArgs.add(args);
+		}
+
+		int updated = 0;
+		for (int from = 0; from < batchArgs.size(); from += BATCH_SIZE) {
+			int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, batchArgs.subList(from, Math.min(from + BATCH_SIZE, batchArgs.size())));
+			for (int count : counts) {
+				if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+					updated++;
+				}
+			}
+		}
+
+		return new int[] { updated, skipped + batchArgs.size() - updated };
+	}
+
+	private enum Source {
+		REVIEWS, FAVORITES
+	}
+
+	// IDの範囲を半分ずつに分割し、partitionSize以下になったら1回のSQLで走査して、実行したワーカーの集計値に加算する
+	// 1つのワーカーが同時に走査する区間は1つだけのため、ワーカーの集計値は同期せずに加算できる
+	private class ScanTask extends RecursiveAction {
+		private final Source source;
+		private final int size;
+		private final long fromId;
+		private final long toId;
+		private final Map<Thread, Aggregates> workers;
+		private final Progress progress;
+
+		private ScanTask(Source source, int size, long fromId, long toId, Map<Thread, Aggregates> workers, Progress progress) {
+			this.source = source;
+			this.size = size;
+			this.fromId = fromId;
+			this.toId = toId;
+			this.workers = workers;
+			this.progress = progress;
+		}
+
+		@Override
+		protected void compute() {
+			if (toId - fromId + 1 > partitionSize) {
+				long middle = fromId + (toId - fromId) / 2;
+				invokeAll(new ScanTask(source, size, fromId, middle, workers, progress),
+				          new ScanTask(source, size, middle + 1, toId, workers, progress));
+				return;
+			}
+
+			if (fromId > toId) {
+				return;
+			}
+
+			Aggregates aggregates = workers.computeIfAbsent(Thread.currentThread(), thread -> new Aggregates(size));
+			long scannedRows = aggregates.scannedRows;
+
+			if (source == Source.REVIEWS) {
+				jdbcTemplate.query(REVIEW_SCAN_SQL, resultSet -> {
+					aggregates.addReview(resultSet.getInt(1), resultSet.getInt(2));
+				}, fromId, toId);
+			} else {
+				jdbcTemplate.query(FAVORITE_SCAN_SQL, resultSet -> {
+					aggregates.addFavorite(resultSet.getInt(1));
+				}, fromId, toId);
+			}
+
+			progress.scannedRows.addAndGet(aggregates.scannedRows - scannedRows);
+			progress.scannedIds.addAndGet(toId - fromId + 1);
+		}
+	}
+
+	// 店舗IDを添字にした集計値（ボクシングを避けるため、店舗IDをキーにしたMapではなくint配列に持つ）
+	private static class Aggregates {
+		private final int[] ratingSums;
+		private final int[] ratingCounts;
+		private final int[][] scoreCounts = new int[5][];
+		private final int[] favoriteCounts;
+		private long scannedRows;
+
+		private Aggregates(int size) {
+			ratingSums = new int[size];
+			ratingCounts = new int[size];
+			for (int i = 0; i < scoreCounts.length; i++) {
+				scoreCounts[i] = new int[size];
+			}
+			favoriteCounts = new int[size];
+		}
+
+		// 走査中に登録された店舗（読み込んだ店舗数より大きいID）は次回の再計算に回す
+		private void addReview(int restaurantId, int score) {
+			scannedRows++;
+			if (restaurantId < ratingSums.length && score >= 1 && score <= 5) {
+				ratingSums[restaurantId] += score;
+				ratingCounts[restaurantId]++;
+				scoreCounts[score - 1][restaurantId]++;
+			}
+		}
+
+		private void addFavorite(int restaurantId) {
+			scannedRows++;
+			if (restaurantId < favoriteCounts.length) {
+				favoriteCounts[restaurantId]++;
+			}
+		}
+
+		private Aggregates merge(Aggregates other) {
+			for (int i = 0; i < ratingSums.length; i++) {
+				ratingSums[i] += other.ratingSums[i];
+				ratingCounts[i] += other.ratingCounts[i];
+				for (int score = 0; score < scoreCounts.length; score++) {
+					scoreCounts[score][i] += other.scoreCounts[score][i];
+				}
+				favoriteCounts[i] += other.favoriteCounts[i];
+			}
+			scannedRows += other.scannedRows;
+			return this;
+		}
+
+		// {評価の合計, 件数, 評価1～5の件数, お気に入り数}
+		private int[] valuesOf(int restaurantId) {
+			return new int[] { ratingSums[restaurantId], ratingCounts[restaurantId], scoreCounts[0][restaurantId], scoreCounts[1][restaurantId],
+			                   scoreCounts[2][restaurantId], scoreCounts[3][restaurantId], scoreCounts[4][restaurantId], favoriteCounts[restaurantId] };
+		}
+	}
+
+	private record Row(int id, int[] values, BigDecimal average) {
+	}
+
+	// 再計算の進捗（走査するIDの範囲の合計は最小・最大のIDを読み込むまで0）
+	private static class Progress {
+		private final LocalDateTime startedAt;
+		private final long startNanos;
+		private volatile long totalIds;
+		private final AtomicLong scannedIds = new AtomicLong();
+		private final AtomicLong scannedRows = new AtomicLong();
+
+		private Progress(LocalDateTime startedAt, long startNanos) {
+			this.startedAt = startedAt;
+			this.startNanos = startNanos;
+		}
+
+		private ReconciliationResult toResult() {
+			long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+			long total = totalIds;
+			int percent = total > 0 ? (int) (scannedIds.get() * 100 / total) : 0;
+			return new ReconciliationResult(startedAt, scannedRows.get(), 0, 0, elapsedMillis, percent, true);
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.example.nagoyameshi.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.nagoyameshi.repository.RestaurantRepository;
+import com.example.nagoyameshi.storage.ImageStore;
+
+// 画像を差し替えた店舗や削除した店舗の、どの店舗からも参照されなくなった画像を定期的に削除する
+// 同じ画像は複数の店舗で共有されるため、更新・削除のたびではなく参照の有無をまとめて確認してから削除する
+@Component
+public class RestaurantImageCleaner {
+	private final RestaurantRepository restaurantRepository;
+	private final ImageStore imageStore;
+	// 保存してからこの時間（ミリ秒）が経っていない画像は、まだ店舗に保存されていない可能性があるため残す
+	private final long gracePeriod;
+	
+	public RestaurantImageCleaner(RestaurantRepository restaurantRepository, ImageStore imageStore,
+			                      @Value("${nagoyameshi.image-store.grace-period:3600000}") long gracePeriod) {
+		this.restaurantRepository = restaurantRepository;
+		this.imageStore = imageStore;
+		this.gracePeriod = gracePeriod;
+	}
+	
+	// 失敗した場合は次回に削除する（例外はスケジューラーがログに出力する）
+	@Scheduled(cron = "${nagoyameshi.image-store.cleanup-cron:0 30 3 * * *}")
+	public void deleteUnreferencedImages() throws IOException {
+		imageStore.deleteUnreferenced(new HashSet<>(restaurantRepository.findDistinctImages()), Duration.ofMillis(gracePeriod));
+	}
+
+}
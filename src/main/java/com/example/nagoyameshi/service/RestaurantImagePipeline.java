@@ -0,0 +1,306 @@
+package com.example.nagoyameshi.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.nagoyameshi.event.RestaurantChangeEventPublisher;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+import com.example.nagoyameshi.storage.ImageStore;
+import com.example.nagoyameshi.storage.ImageVariant;
+
+import jakarta.annotation.PreDestroy;
+
+// 店舗画像からカード・詳細ページ・サムネイル用の幅を固定したJPEG（ImageVariant）と、読み込み中に表示する縮小画像を作成し、店舗に記録する
+// アップロードされた画像はコミット後にこのクラス専用のワーカーのプールで作成し、リクエストのスレッドでは画像を処理しない
+// 1枚の画像のサイズ違いも並列に作成する（Fork/Joinプールのため、画像ごとのタスクの中で分割しても待ち合わせでワーカーが枯渇しない）
+@Service
+public class RestaurantImagePipeline {
+	private static final Logger logger = LoggerFactory.getLogger(RestaurantImagePipeline.class);
+	// 縮小画像の長辺のピクセル数（カードに引き伸ばして表示するとぼけて見える。PNGで数百バイトになる）
+	private static final int PLACEHOLDER_SIZE = 16;
+	private final ImageStore imageStore;
+	private final RestaurantRepository restaurantRepository;
+	private final RestaurantChangeEventPublisher restaurantChangeEventPublisher;
+	private final TransactionTemplate transactionTemplate;
+	// JPEGの画質（0～1）
+	private final float quality;
+	private final ForkJoinPool pool;
+
+	private final AtomicBoolean backfilling = new AtomicBoolean();
+	// 実行中の一括作成の進捗（実行中でなければnull）と、最後に終わった一括作成の結果
+	private volatile BackfillProgress backfillProgress;
+	private volatile ImageBackfillResult lastBackfillResult;
+
+	public RestaurantImagePipeline(ImageStore imageStore, RestaurantRepository restaurantRepository,
+			                       RestaurantChangeEventPublisher restaurantChangeEventPublisher, PlatformTransactionManager transactionManager,
+			                       @Value("${nagoyameshi.image-pipeline.quality:0.8}") float quality,
+			                       @Value("${nagoyameshi.image-pipeline.parallelism:0}") int parallelism) {
+		this.imageStore = imageStore;
+		this.restaurantRepository = restaurantRepository;
+		this.restaurantChangeEventPublisher = restaurantChangeEventPublisher;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.quality = quality;
+		// 0の場合はCPUのコア数だけワーカーを使う
+		this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	// トランザクションのコミット後にサイズ違いの作成を始める（ロールバックした場合は作成しない）
+	public void submitAfterCommit(String image) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			pool.execute(() -> process(image));
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				pool.execute(() -> process(image));
+			}
+		});
+	}
+
+	// 店舗が参照している全ての画像のサイズ違いの作り直しをワーカーのプールで始める（既に実行中の場合は何もせずfalseを返す）
+	// 呼び出したスレッドでは待たず、進捗と結果はgetLastBackfillResult()で確認する
+	public boolean backfill() {
+		if (!backfilling.compareAndSet(false, true)) {
+			return false;
+		}
+
+		BackfillProgress progress = new BackfillProgress(LocalDateTime.now(), System.nanoTime());
+		backfillProgress = progress;
+
+		try {
+			pool.execute(() -> {
+				try {
+					List<String> images = restaurantRepository.findDistinctImages();
+					progress.totalImages = images.size();
+
+					// 画像ごとに全てのワーカーで分担する（プールのタスクの中のため、並列ストリームもこのプールで動く）
+					images.parallelStream().forEach(image -> {
+						if (process(image)) {
+							progress.processedImages.incrementAndGet();
+						} else {
+							progress.failedImages.incrementAndGet();
+						}
+					});
+				} catch (RuntimeException e) {
+					logger.error("画像のサイズ違いの一括作成が中断されました", e);
+				} finally {
+					lastBackfillResult = progress.toResult(false);
+					backfillProgress = null;
+					backfilling.set(false);
+				}
+			});
+		} catch (RuntimeException e) {
+			backfillProgress = null;
+			backfilling.set(false);
+			throw e;
+		}
+
+		return true;
+	}
+
+	// 実行中ならその時点の進捗、そうでなければ最後に終わった一括作成の結果（まだ実行していなければnull）
+	public ImageBackfillResult getLastBackfillResult() {
+		BackfillProgress progress = backfillProgress;
+		return progress != null ? progress.toResult(true) : lastBackfillResult;
+	}
+
+	// 1枚の画像のサイズ違いを作成して記録し、作成できなかった場合は理由をログに出力してfalseを返す（店舗には元の画像だけが表示される）
+	private boolean process(String image) {
+		SourceImage source;
+		try (InputStream inputStream = imageStore.open(image)) {
+			source = read(inputStream);
+		} catch (IOException e) {
+			logger.warn("店舗画像を読み込めませんでした: {}", image, e);
+			return false;
+		}
+		if (source == null) {
+			logger.warn("店舗画像の形式に対応していません: {}", image);
+			return false;
+		}
+
+		// 元の画像より幅の小さいサイズ違いだけを作成する（拡大はしない。縦長の画像は間引いて読み込んだ幅も超えない）
+		int[] widths = Arrays.stream(ImageVariant.values())
+				             .mapToInt(ImageVariant::getWidth)
+				             .filter(width -> width < source.width() && width <= source.image().getWidth())
+				             .toArray();
+
+		try {
+			Arrays.stream(widths).parallel().forEach(width -> {
+				try {
+					imageStore.storeVariant(ImageVariant.nameOf(image, width), encode(resize(source.image(), width)));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			logger.warn("店舗画像のサイズ違いを保存できませんでした: {}", image, e.getCause());
+			return false;
+		}
+
+		String imagePlaceholder;
+		try {
+			imagePlaceholder = placeholderOf(source.image());
+		} catch (IOException e) {
+			logger.warn("店舗画像の縮小画像を作成できませんでした: {}", image, e);
+			return false;
+		}
+
+		String imageWidths = Arrays.stream(widths).mapToObj(String::valueOf).collect(Collectors.joining(","));
+		// 店舗の一覧・トップページのキャッシュに反映されるよう、記録した店舗の変更をコミット後に通知する
+		transactionTemplate.executeWithoutResult(status -> {
+			restaurantRepository.updateImageVariantsByImage(image, imageWidths, imagePlaceholder);
+			for (Integer restaurantId : restaurantRepository.findIdsByImage(image)) {
+				restaurantChangeEventPublisher.publishRestaurantChangeEvent(restaurantId);
+			}
+		});
+
+		return true;
+	}
+
+	// 画像を読み込む（対応していない形式の場合はnull）
+	// 長辺が最も大きいサイズ違いの幅の2倍以上ある画像は、画素を間引いて読み込みデコードに使うメモリと時間を減らす
+	// 幅だけで決めると、幅が小さく極端に縦長の画像を全画素で読み込んでしまうため、長辺で決める
+	private static SourceImage read(InputStream inputStream) throws IOException {
+		try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+			Iterator<ImageReader> readers = imageInputStream != null ? ImageIO.getImageReaders(imageInputStream) : null;
+			if (readers == null || !readers.hasNext()) {
+				return null;
+			}
+
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(imageInputStream, true, true);
+				int width = reader.getWidth(0);
+				int longSide = Math.max(width, reader.getHeight(0));
+				int maxWidth = Arrays.stream(ImageVariant.values()).mapToInt(ImageVariant::getWidth).max().getAsInt();
+				int subsampling = Math.max(1, longSide / (maxWidth * 2));
+
+				ImageReadParam imageReadParam = reader.getDefaultReadParam();
+				imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+				return new SourceImage(reader.read(0, imageReadParam), width);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	// 半分ずつ縮小してから指定した幅にする（1回で大きく縮小すると、バイリニア補間でも細部が荒くなるため）
+	private static BufferedImage resize(BufferedImage image, int width) {
+		int height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+		BufferedImage current = image;
+
+		while (current.getWidth() / 2 >= width) {
+			current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2));
+		}
+
+		return draw(current, width, height);
+	}
+
+	// 長辺をPLACEHOLDER_SIZEピクセルにした画像のdata URI（JPEGはヘッダーだけで数百バイトあるため、この大きさではPNGの方が小さい）
+	private static String placeholderOf(BufferedImage image) throws IOException {
+		int width = Math.max(1, (int) Math.round((double) PLACEHOLDER_SIZE * image.getWidth() / Math.max(image.getWidth(), image.getHeight())));
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		ImageIO.write(resize(image, width), "png", outputStream);
+
+		return "data:image/png;base64," + Base64.getEncoder().encodeToString(outputStream.toByteArray());
+	}
+
+	// 透過部分は白で塗りつぶす（JPEGは透過に対応しないため）
+	private static BufferedImage draw(BufferedImage image, int width, int height) {
+		BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = resized.createGraphics();
+
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+		} finally {
+			graphics.dispose();
+		}
+
+		return resized;
+	}
+
+	private byte[] encode(BufferedImage image) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+			ImageWriteParam imageWriteParam = writer.getDefaultWriteParam();
+			imageWriteParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			imageWriteParam.setCompressionQuality(quality);
+
+			writer.setOutput(imageOutputStream);
+			writer.write(null, new IIOImage(image, null, null), imageWriteParam);
+		} finally {
+			writer.dispose();
+		}
+
+		return outputStream.toByteArray();
+	}
+
+	// 読み込んだ画像と、間引く前の元の幅
+	private record SourceImage(BufferedImage image, int width) {
+	}
+
+	// 一括作成の進捗（画像の数は読み込むまで0）
+	private static class BackfillProgress {
+		private final LocalDateTime startedAt;
+		private final long startNanos;
+		private volatile int totalImages;
+		private final AtomicInteger processedImages = new AtomicInteger();
+		private final AtomicInteger failedImages = new AtomicInteger();
+
+		private BackfillProgress(LocalDateTime startedAt, long startNanos) {
+			this.startedAt = startedAt;
+			this.startNanos = startNanos;
+		}
+
+		private ImageBackfillResult toResult(boolean running) {
+			long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+			return new ImageBackfillResult(startedAt, totalImages, processedImages.get(), failedImages.get(), elapsedMillis, running);
+		}
+	}
+
+}
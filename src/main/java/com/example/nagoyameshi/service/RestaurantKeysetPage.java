@@ -0,0 +1,89 @@
+package com.example.nagoyameshi.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.repository.RestaurantSummary;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// キーセットページネーションで取得した店舗一覧の1ページ分
+@Getter
+@AllArgsConstructor
+public class RestaurantKeysetPage implements Iterable<RestaurantSummary> {
+	// ページ番号のリンクを現在のページの前後何ページまで表示するか
+	private static final int WINDOW = 2;
+	
+	private final List<RestaurantSummary> content;
+	private final int number;
+	private final int size;
+	private final boolean hasNext;
+	private final boolean hasPrevious;
+	// 件数を数えていない場合はnull
+	private final Long totalElements;
+	// このページの先頭・末尾の店舗のカーソル
+	private final String firstCursor;
+	private final String lastCursor;
+	// このページの店舗のカテゴリ（店舗IDごと）
+	private final Map<Integer, List<Category>> categories;
+	
+	@Override
+	public Iterator<RestaurantSummary> iterator() {
+		return content.iterator();
+	}
+	
+	public boolean hasNext() {
+		return hasNext;
+	}
+	
+	public boolean hasPrevious() {
+		return hasPrevious;
+	}
+	
+	// 店舗のカテゴリ（ページ単位でまとめて取得済みのため、店舗ごとにSQLを発行しない）
+	public List<Category> getCategories(RestaurantSummary restaurant) {
+		return categories.getOrDefault(restaurant.getId(), new ArrayList<>());
+	}
+	
+	public boolean isCounted() {
+		return totalElements != null;
+	}
+	
+	public int getTotalPages() {
+		if (totalElements == null) {
+			return -1;
+		}
+		return (int) ((totalElements + size - 1) / size);
+	}
+	
+	// 表示するページ番号（件数を数えていない場合は、現在のページより後ろは次のページまで）
+	public List<Integer> getWindow() {
+		List<Integer> window = new ArrayList<>();
+		int last = isCounted() ? Math.min(getTotalPages() - 1, number + WINDOW) : (hasNext ? number + 1 : number);
+		
+		for (int i = Math.max(0, number - WINDOW); i <= last; i++) {
+			window.add(i);
+		}
+		
+		return window;
+	}
+	
+	// 指定したページへ移動するときに使うカーソル
+	public String cursorFor(int page) {
+		if (page > number) {
+			return lastCursor;
+		} else if (page < number) {
+			return firstCursor;
+		}
+		return null;
+	}
+	
+	public String directionFor(int page) {
+		return page < number ? "prev" : "next";
+	}
+
+}
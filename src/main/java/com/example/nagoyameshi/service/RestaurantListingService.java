@@ -0,0 +1,341 @@
+package com.example.nagoyameshi.service;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.nagoyameshi.entity.Category;
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.repository.CategoryRestaurantRepository;
+import com.example.nagoyameshi.repository.RestaurantCursor;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+import com.example.nagoyameshi.repository.RestaurantSortOrder;
+import com.example.nagoyameshi.repository.RestaurantSpecifications;
+import com.example.nagoyameshi.repository.RestaurantSummary;
+import com.example.nagoyameshi.search.FuzzyNameIndex;
+import com.example.nagoyameshi.search.KeywordMatch;
+import com.example.nagoyameshi.search.OpeningHours;
+import com.example.nagoyameshi.search.RestaurantCatalog;
+import com.example.nagoyameshi.search.RestaurantFacets;
+import com.example.nagoyameshi.search.RestaurantSearchBackend;
+
+@Service
+public class RestaurantListingService {
+	// 「現在営業中」の判定に使うタイムゾーン
+	private static final ZoneId ZONE = ZoneId.of("Asia/Tokyo");
+	// 名前の近い店舗の候補数（他の条件で絞り込む前）
+	private static final int SIMILAR_NAME_CANDIDATES = 50;
+	// メモリ上で絞り込んだ店舗IDが多い場合に、並び順に読み進める1回の行数
+	private static final int SCAN_BATCH_SIZE = 500;
+	
+	private final RestaurantRepository restaurantRepository;
+	private final CategoryRestaurantRepository categoryRestaurantRepository;
+	private final RestaurantSearchBackend restaurantSearchBackend;
+	private final RestaurantCatalog restaurantCatalog;
+	private final FuzzyNameIndex fuzzyNameIndex;
+	// 検索結果の総件数を数えるかどうか（falseにすると件数と総ページ数を表示しない）
+	private final boolean countTotal;
+	// IN句に渡す店舗IDの上限（超える場合はIN句に渡さず、並び順に読み進めながらIDで絞り込む）
+	private final int maxRestaurantIds;
+	
+	public RestaurantListingService(RestaurantRepository restaurantRepository, CategoryRestaurantRepository categoryRestaurantRepository,
+			                        RestaurantSearchBackend restaurantSearchBackend, RestaurantCatalog restaurantCatalog, FuzzyNameIndex fuzzyNameIndex,
+			                        @Value("${nagoyameshi.listing.count-total:true}") boolean countTotal,
+			                        @Value("${nagoyameshi.listing.max-restaurant-ids:1000}") int maxRestaurantIds) {
+		this.restaurantRepository = restaurantRepository;
+		this.categoryRestaurantRepository = categoryRestaurantRepository;
+		this.restaurantSearchBackend = restaurantSearchBackend;
+		this.restaurantCatalog = restaurantCatalog;
+		this.fuzzyNameIndex = fuzzyNameIndex;
+		this.countTotal = countTotal;
+		this.maxRestaurantIds = maxRestaurantIds;
+	}
+	
+	// キーワード検索を1回だけ行い、その結果を一覧と件数の集計の両方に渡す（キーワードがなければnull）
+	public KeywordMatch matchKeyword(RestaurantSearchCondition condition) {
+		String keyword = condition.getKeyword();
+		
+		if (keyword == null || keyword.isBlank()) {
+			return null;
+		}
+		
+		return restaurantSearchBackend.match(keyword.trim());
+	}
+	
+	// 店舗一覧の1ページ分を取得する
+	// カーソルがあれば、カーソルの位置から(並び替え列, id)で絞り込むため、何ページ目でも1ページ目と同じコストで取得できる
+	@Transactional(readOnly = true)
+	public RestaurantKeysetPage findRestaurants(RestaurantSearchCondition condition, KeywordMatch keywordMatch,
+			                                    String cursorToken, String direction, Long total, int page, int size) {
+		RestaurantSortOrder sortOrder = RestaurantSortOrder.from(condition.getOrder());
+		ListingQuery listingQuery = toListingQuery(condition, keywordMatch);
+		Specification<Restaurant> specification = listingQuery.specification();
+		Set<Integer> restaurantIds = listingQuery.restaurantIds();
+		RestaurantCursor cursor = RestaurantCursor.parse(cursorToken);
+		boolean backward = "prev".equals(direction);
+		int distance = cursor == null ? 0 : (backward ? cursor.getPage() - page : page - cursor.getPage());
+		
+		List<RestaurantSummary> restaurants;
+		boolean hasNext;
+		boolean hasPrevious;
+		
+		if (cursor != null && distance >= 1) {
+			// カーソルから離れたページ（ページ番号のリンク）は、その間のページ分だけ読み飛ばす
+			restaurants = findByKeyset(specification, restaurantIds, sortOrder, cursor, backward, (distance - 1) * size, size + 1);
+			boolean hasMore = restaurants.size() > size;
+			
+			if (hasMore) {
+				restaurants.remove(size);
+			}
+			
+			if (backward) {
+				Collections.reverse(restaurants);
+				hasNext = true;
+				hasPrevious = hasMore;
+			} else {
+				hasNext = hasMore;
+				hasPrevious = true;
+			}
+		} else {
+			// カーソルがない場合（最初のページなど）はページ番号から位置を求める
+			page = Math.max(page, 0);
+			restaurants = findByKeyset(specification, restaurantIds, sortOrder, null, false, page * size, size + 1);
+			hasNext = restaurants.size() > size;
+			hasPrevious = page > 0;
+			
+			if (hasNext) {
+				restaurants.remove(size);
+			}
+		}
+		
+		// 総件数は検索条件ごとに最初の1回だけ数え、以降のページはリンクで引き継ぐ
+		// 店舗カタログで数えられる場合はMySQLで数えない
+		Long totalElements = null;
+		if (countTotal && total != null) {
+			totalElements = total;
+		} else if (countTotal) {
+			RestaurantFacets facets = findFacets(condition, keywordMatch, List.of());
+			if (facets != null) {
+				totalElements = facets.getTotalElements();
+			} else if (restaurantIds == null || restaurantIds.size() <= maxRestaurantIds) {
+				totalElements = restaurantRepository.countBySpecification(restrict(specification, restaurantIds));
+			}
+		}
+		
+		String firstCursor = null;
+		String lastCursor = null;
+		if (!restaurants.isEmpty()) {
+			RestaurantSummary first = restaurants.get(0);
+			RestaurantSummary last = restaurants.get(restaurants.size() - 1);
+			firstCursor = new RestaurantCursor(page, sortOrder.sortValueOf(first), first.getId()).toString();
+			lastCursor = new RestaurantCursor(page, sortOrder.sortValueOf(last), last.getId()).toString();
+		}
+		
+		return new RestaurantKeysetPage(restaurants, page, size, hasNext, hasPrevious, totalElements, firstCursor, lastCursor,
+				                        findCategories(restaurants));
+	}
+	
+	// キーワードに名前の近い店舗を、編集距離の小さい順に1ページ分取得する（キーワード以外の条件はそのまま適用する）
+	// キーワードに一致する店舗がなかった場合の代わりの検索結果のため、ページは分けない
+	@Transactional(readOnly = true)
+	public RestaurantKeysetPage findSimilarlyNamedRestaurants(RestaurantSearchCondition condition, int size) {
+		List<Integer> restaurantIds = fuzzyNameIndex.search(condition.getKeyword(), SIMILAR_NAME_CANDIDATES);
+		List<RestaurantSummary> restaurants = new ArrayList<>();
+		
+		if (!restaurantIds.isEmpty()) {
+			Set<Integer> filteredRestaurantIds = filterInCatalog(condition, restaurantIds);
+			Specification<Restaurant> specification = filteredRestaurantIds != null ? RestaurantSpecifications.idIn(filteredRestaurantIds)
+					                                                                : Specification.where(RestaurantSpecifications.idIn(restaurantIds))
+					                                                                               .and(toFilterSpecification(condition));
+			restaurants.addAll(restaurantRepository.findByKeyset(specification, RestaurantSortOrder.from(condition.getOrder()), null, false, 0, restaurantIds.size()));
+			restaurants.sort(Comparator.comparingInt(restaurant -> restaurantIds.indexOf(restaurant.getId())));
+			
+			if (restaurants.size() > size) {
+				restaurants = new ArrayList<>(restaurants.subList(0, size));
+			}
+		}
+		
+		return new RestaurantKeysetPage(restaurants, 0, size, false, false, (long) restaurants.size(), null, null, findCategories(restaurants));
+	}
+	
+	// 指定した店舗をIDの順に取得する（店舗詳細ページのおすすめ・似ている店舗のカード。カテゴリもまとめて取得する）
+	@Transactional(readOnly = true)
+	public RestaurantKeysetPage findRestaurantsByIds(List<Integer> restaurantIds) {
+		List<RestaurantSummary> restaurants = new ArrayList<>();
+		
+		if (!restaurantIds.isEmpty()) {
+			restaurants.addAll(restaurantRepository.findByKeyset(RestaurantSpecifications.idIn(restaurantIds), RestaurantSortOrder.from(null), null, false, 0, restaurantIds.size()));
+			restaurants.sort(Comparator.comparingInt(restaurant -> restaurantIds.indexOf(restaurant.getId())));
+		}
+		
+		return new RestaurantKeysetPage(restaurants, 0, Math.max(restaurants.size(), 1), false, false, (long) restaurants.size(), null, null, findCategories(restaurants));
+	}
+	
+	// 検索条件に一致する件数と、カテゴリ別・予算の上限別の件数を店舗カタログから求める
+	// カタログの作成前や、キーワードに一致する店舗IDがない（メモリ上で検索しない設定の）場合はnullを返す
+	public RestaurantFacets findFacets(RestaurantSearchCondition condition, KeywordMatch keywordMatch, List<Integer> priceBuckets) {
+		if (!restaurantCatalog.isReady() || (keywordMatch != null && !keywordMatch.hasRestaurantIds())) {
+			return null;
+		}
+		
+		List<Integer> restaurantIds = keywordMatch != null ? keywordMatch.getRestaurantIds() : null;
+		
+		OpenAt openAt = openAtOf(condition);
+		
+		return restaurantCatalog.facets(restaurantIds, condition.getCategoryIds(), condition.getMinPrice(), condition.getMaxPrice(), condition.getWeekday(),
+				                        openAt != null ? openAt.dayIndex() : null, openAt != null ? openAt.time() : null, priceBuckets);
+	}
+	
+	// ページ内の店舗のカテゴリを1回のSQLでまとめて取得する（ページサイズに関わらずSQLの発行回数は一定）
+	private Map<Integer, List<Category>> findCategories(List<RestaurantSummary> restaurants) {
+		Map<Integer, List<Category>> categories = new HashMap<>();
+		
+		if (restaurants.isEmpty()) {
+			return categories;
+		}
+		
+		List<Integer> restaurantIds = new ArrayList<>(restaurants.size());
+		for (RestaurantSummary restaurant : restaurants) {
+			restaurantIds.add(restaurant.getId());
+		}
+		
+		for (Object[] row : categoryRestaurantRepository.findCategoriesByRestaurantIdIn(restaurantIds)) {
+			categories.computeIfAbsent((Integer) row[0], key -> new ArrayList<>()).add((Category) row[1]);
+		}
+		
+		return categories;
+	}
+	
+	// restaurantIdsがnullでなければ、その店舗に限定して並び順に1ページ分を取得する
+	// 上限以下ならIN句で絞り込み、超える場合はIN句を使わずに並び順に読み進めながらIDで絞り込む（並び替え列のインデックスを順に読むだけになる）
+	private List<RestaurantSummary> findByKeyset(Specification<Restaurant> specification, Set<Integer> restaurantIds, RestaurantSortOrder sortOrder,
+			                                     RestaurantCursor cursor, boolean backward, int offset, int limit) {
+		if (restaurantIds == null || restaurantIds.size() <= maxRestaurantIds) {
+			return new ArrayList<>(restaurantRepository.findByKeyset(restrict(specification, restaurantIds), sortOrder, cursor, backward, offset, limit));
+		}
+		
+		List<RestaurantSummary> restaurants = new ArrayList<>();
+		RestaurantCursor position = cursor;
+		int skip = offset;
+		
+		while (true) {
+			List<RestaurantSummary> batch = restaurantRepository.findByKeyset(specification, sortOrder, position, backward, 0, SCAN_BATCH_SIZE);
+			
+			for (RestaurantSummary restaurant : batch) {
+				if (!restaurantIds.contains(restaurant.getId())) {
+					continue;
+				}
+				if (skip > 0) {
+					skip--;
+					continue;
+				}
+				restaurants.add(restaurant);
+				if (restaurants.size() == limit) {
+					return restaurants;
+				}
+			}
+			
+			if (batch.size() < SCAN_BATCH_SIZE) {
+				return restaurants;
+			}
+			
+			// 読んだ最後の行の続きから読む（ページ番号は位置の比較に使わない）
+			RestaurantSummary last = batch.get(batch.size() - 1);
+			position = new RestaurantCursor(0, sortOrder.sortValueOf(last), last.getId());
+		}
+	}
+	
+	private static Specification<Restaurant> restrict(Specification<Restaurant> specification, Set<Integer> restaurantIds) {
+		return restaurantIds != null ? Specification.where(specification).and(RestaurantSpecifications.idIn(restaurantIds)) : specification;
+	}
+	
+	// 一覧のSQLの条件と、メモリ上で絞り込んだ店舗ID（nullなら限定しない）
+	// メモリ上で検索したキーワードや営業時間の条件があれば、店舗カタログで全ての条件を判定してSQLでは並び順に読むだけにする
+	// カタログの作成前は、キーワードに一致した店舗IDに限定したうえでキーワード以外の条件をSQLで判定する
+	private ListingQuery toListingQuery(RestaurantSearchCondition condition, KeywordMatch keywordMatch) {
+		List<Integer> keywordRestaurantIds = keywordMatch != null && keywordMatch.hasRestaurantIds() ? keywordMatch.getRestaurantIds() : null;
+		Set<Integer> restaurantIds = filterInCatalog(condition, keywordRestaurantIds);
+		
+		if (restaurantIds != null) {
+			return new ListingQuery(keywordRestaurantIds != null ? null : keywordSpecificationOf(keywordMatch), restaurantIds);
+		}
+		if (keywordRestaurantIds != null) {
+			return new ListingQuery(toFilterSpecification(condition), new HashSet<>(keywordRestaurantIds));
+		}
+		
+		return new ListingQuery(toSpecification(condition, keywordMatch), null);
+	}
+	
+	// メモリ上で検索したキーワードの店舗ID（restaurantIds）か営業時間の条件があれば、キーワード以外の全ての条件で店舗カタログを絞り込んだ店舗IDを返す
+	// どちらもない場合や、カタログの作成前はnullを返す
+	private Set<Integer> filterInCatalog(RestaurantSearchCondition condition, List<Integer> restaurantIds) {
+		OpenAt openAt = openAtOf(condition);
+		
+		if ((restaurantIds == null && openAt == null) || !restaurantCatalog.isReady()) {
+			return null;
+		}
+		
+		return restaurantCatalog.findRestaurantIds(restaurantIds, condition.getCategoryIds(), condition.getMinPrice(), condition.getMaxPrice(),
+				                                   condition.getWeekday(), openAt != null ? openAt.dayIndex() : null, openAt != null ? openAt.time() : null);
+	}
+	
+	private Specification<Restaurant> keywordSpecificationOf(KeywordMatch keywordMatch) {
+		return keywordMatch != null ? restaurantSearchBackend.toSpecification(keywordMatch) : null;
+	}
+	
+	// 指定された検索条件を全てANDで組み合わせる
+	private Specification<Restaurant> toSpecification(RestaurantSearchCondition condition, KeywordMatch keywordMatch) {
+		return Specification.where(keywordSpecificationOf(keywordMatch)).and(toFilterSpecification(condition));
+	}
+	
+	// キーワード以外の検索条件
+	// 営業時間は店舗カタログで判定し、SQLで開店・閉店時刻を比較するのは起動直後のカタログの作成前だけ
+	private Specification<Restaurant> toFilterSpecification(RestaurantSearchCondition condition) {
+		OpenAt openAt = openAtOf(condition);
+		Specification<Restaurant> openAtSpecification = openAt != null ? RestaurantSpecifications.openAt(openAt.dayIndex(), openAt.time()) : null;
+		// 営業時間の条件に同じ曜日の定休日の条件が含まれるため、曜日が同じなら重ねて指定しない
+		Integer weekday = openAt != null && Integer.valueOf(openAt.dayIndex()).equals(condition.getWeekday()) ? null : condition.getWeekday();
+		
+		return Specification.where(RestaurantSpecifications.hasAnyCategory(condition.getCategoryIds()))
+				            .and(RestaurantSpecifications.withinBudget(condition.getMinPrice(), condition.getMaxPrice()))
+				            .and(RestaurantSpecifications.openOn(weekday))
+				            .and(openAtSpecification);
+	}
+	
+	// 営業している曜日・時刻の条件（「現在営業中」の場合は現在の曜日・時刻、時刻のみの場合は今日の曜日）
+	// SQLと店舗カタログで同じ時刻を比較するよう、秒以下は切り捨てる
+	private OpenAt openAtOf(RestaurantSearchCondition condition) {
+		ZonedDateTime now = ZonedDateTime.now(ZONE);
+		
+		if (condition.isOpenNow()) {
+			return new OpenAt(OpeningHours.dayIndexOf(now.getDayOfWeek()), now.toLocalTime().truncatedTo(ChronoUnit.MINUTES));
+		}
+		if (condition.getTime() != null) {
+			int dayIndex = condition.getWeekday() != null ? condition.getWeekday() : OpeningHours.dayIndexOf(now.getDayOfWeek());
+			return new OpenAt(dayIndex, condition.getTime().truncatedTo(ChronoUnit.MINUTES));
+		}
+		
+		return null;
+	}
+	
+	private record OpenAt(int dayIndex, LocalTime time) {
+	}
+	
+	private record ListingQuery(Specification<Restaurant> specification, Set<Integer> restaurantIds) {
+	}
+
+}
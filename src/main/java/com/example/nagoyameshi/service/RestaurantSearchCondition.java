@@ -0,0 +1,33 @@
+package com.example.nagoyameshi.service;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// 店舗一覧の検索条件（指定された条件は全て組み合わせて絞り込む）
+@Data
+@AllArgsConstructor
+public class RestaurantSearchCondition {
+	private String keyword;
+	
+	private List<Integer> categoryIds;
+	
+	// 予算の下限と上限
+	private Integer minPrice;
+	
+	private Integer maxPrice;
+	
+	// 営業している曜日（RegularHoliday.dayIndex）
+	private Integer weekday;
+	
+	// 営業している時刻（曜日の指定がなければ今日）
+	private LocalTime time;
+	
+	// 現在営業中の店舗に限定するかどうか（trueの場合は時刻の指定を無視する）
+	private boolean openNow;
+	
+	private String order;
+
+}
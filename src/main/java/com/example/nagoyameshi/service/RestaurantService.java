@@ -1,34 +1,41 @@
 package com.example.nagoyameshi.service;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.UncheckedIOException;
 import java.time.LocalTime;
 import java.util.List;
-import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.RestaurantChangeEventPublisher;
 import com.example.nagoyameshi.form.RestaurantEditForm;
 import com.example.nagoyameshi.form.RestaurantRegisterForm;
 import com.example.nagoyameshi.repository.RestaurantRepository;
+import com.example.nagoyameshi.storage.ImageStore;
 
 @Service
 public class RestaurantService {
 	private final RestaurantRepository restaurantRepository;
 	private final RegularHolidayRestaurantService regularHolidayRestaurantService;
 	private final CategoryRestaurantService categoryRestaurantService;
+	private final RestaurantChangeEventPublisher restaurantChangeEventPublisher;
+	private final ImageStore imageStore;
+	private final RestaurantImagePipeline restaurantImagePipeline;
 	
 	public RestaurantService(RestaurantRepository restaurantRepository,
 			                 RegularHolidayRestaurantService regularHolidayRestaurantService,
-			                 CategoryRestaurantService categoryRestaurantService) {
+			                 CategoryRestaurantService categoryRestaurantService,
+			                 RestaurantChangeEventPublisher restaurantChangeEventPublisher,
+			                 ImageStore imageStore, RestaurantImagePipeline restaurantImagePipeline) {
 		this.restaurantRepository = restaurantRepository;
 		this.regularHolidayRestaurantService = regularHolidayRestaurantService;
 		this.categoryRestaurantService = categoryRestaurantService;
+		this.restaurantChangeEventPublisher = restaurantChangeEventPublisher;
+		this.imageStore = imageStore;
+		this.restaurantImagePipeline = restaurantImagePipeline;
 	}
 	
 	@Transactional
@@ -39,11 +46,7 @@ public class RestaurantService {
 		MultipartFile image = restaurantRegisterForm.getImage();
 		
 		if (!image.isEmpty()) {
-			String imageName = image.getOriginalFilename();
-			String hashedImageName = generateNewFileName(imageName);
-			Path filePath = Paths.get("src/main/resources/static/storage/" + hashedImageName);
-			copyImageFile(image, filePath);
-			restaurant.setImage(hashedImageName);
+			restaurant.setImage(storeImage(image));
 		}
 		
 		restaurant.setName(restaurantRegisterForm.getName());
@@ -65,6 +68,13 @@ public class RestaurantService {
 		if (categoryIds != null) {
 			categoryRestaurantService.create(categoryIds, restaurant);
 		}
+		
+		// 画像のサイズ違い・縮小画像はコミット後に作成する
+		if (restaurant.getImage() != null) {
+			restaurantImagePipeline.submitAfterCommit(restaurant.getImage());
+		}
+		
+		restaurantChangeEventPublisher.publishRestaurantChangeEvent(restaurant.getId());
 	}
 		
 		@Transactional
@@ -74,12 +84,9 @@ public class RestaurantService {
 			List<Integer> categoryIds = restaurantEditForm.getCategoryIds();
 			MultipartFile image = restaurantEditForm.getImage();
 			
+			// 差し替え前の画像は、どの店舗からも参照されなくなった時点でRestaurantImageCleanerが削除する
 			if (!image.isEmpty()) {
-				String imageName = image.getOriginalFilename();
-				String hashedImageName = generateNewFileName(imageName);
-				Path filePath = Paths.get("src/main/resources/static/storage/" + hashedImageName);
-				copyImageFile(image, filePath);
-				restaurant.setImage(hashedImageName);
+				restaurant.setImage(storeImage(image));
 			}
 			
 			restaurant.setName(restaurantEditForm.getName());
@@ -94,34 +101,35 @@ public class RestaurantService {
 			
 			restaurantRepository.save(restaurant);
 			
+			// 新しい画像のサイズ違い・縮小画像はコミット後に作成する
+			if (!image.isEmpty()) {
+				restaurantRepository.clearImageVariants(restaurant.getId());
+				restaurantImagePipeline.submitAfterCommit(restaurant.getImage());
+			}
+			
 			regularHolidayRestaurantService.update(regularHolidayIds, restaurant);
 	        categoryRestaurantService.update(categoryIds, restaurant);
-		
+	        
+	        restaurantChangeEventPublisher.publishRestaurantChangeEvent(restaurant.getId());
 	}
 		
 		@Transactional
 	    public void delete(Restaurant restaurant) {
+			Integer restaurantId = restaurant.getId();
+			
 	        regularHolidayRestaurantService.deleteByRestaurant(restaurant);
 	        categoryRestaurantService.deleteByRestaurant(restaurant);
 	        restaurantRepository.delete(restaurant);
+	        
+	        restaurantChangeEventPublisher.publishRestaurantDeleteEvent(restaurantId);
 	    }
-		 // UUIDを使って生成したファイル名を返す
-	     public String generateNewFileName(String fileName) {
-	         String[] fileNames = fileName.split("\\.");                
-	         for (int i = 0; i < fileNames.length - 1; i++) {
-	             fileNames[i] = UUID.randomUUID().toString();            
-	         }
-	         String hashedFileName = String.join(".", fileNames);
-	         return hashedFileName;
-	     }     
-	     
-	     // 画像ファイルを指定したファイルにコピーする
-	     public void copyImageFile(MultipartFile imageFile, Path filePath) {           
+		 // 画像を保存し、店舗に設定するファイル名を返す（保存できなかった場合は店舗の登録・更新もロールバックする）
+	     private String storeImage(MultipartFile image) {
 	         try {
-	             Files.copy(imageFile.getInputStream(), filePath);
+	             return imageStore.store(image);
 	         } catch (IOException e) {
-	             e.printStackTrace();
-	         }          
+	             throw new UncheckedIOException(e);
+	         }
 	}
 	     
 	  // 価格が正しく設定されているかどうかをチェックする
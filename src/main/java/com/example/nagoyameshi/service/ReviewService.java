@@ -6,16 +6,22 @@ import org.springframework.transaction.annotation.Transactional;
 import com.example.nagoyameshi.entity.Restaurant;
 import com.example.nagoyameshi.entity.Review;
 import com.example.nagoyameshi.entity.User;
+import com.example.nagoyameshi.event.ReviewChangeEventPublisher;
 import com.example.nagoyameshi.form.ReviewEditForm;
 import com.example.nagoyameshi.form.ReviewRegisterForm;
+import com.example.nagoyameshi.repository.RestaurantRepository;
 import com.example.nagoyameshi.repository.ReviewRepository;
 
 @Service
 public class ReviewService {
 	private final ReviewRepository reviewRepository;
+	private final RestaurantRepository restaurantRepository;
+	private final ReviewChangeEventPublisher reviewChangeEventPublisher;
 	
-	public ReviewService(ReviewRepository reviewRepository) {
+	public ReviewService(ReviewRepository reviewRepository, RestaurantRepository restaurantRepository, ReviewChangeEventPublisher reviewChangeEventPublisher) {
 		this.reviewRepository = reviewRepository;
+		this.restaurantRepository = restaurantRepository;
+		this.reviewChangeEventPublisher = reviewChangeEventPublisher;
 	}
 	
 	// レビューを保存
@@ -29,23 +35,37 @@ public class ReviewService {
 		review.setUser(user);
 		
 		reviewRepository.save(review);
+		restaurantRepository.addRating(restaurant.getId(), review.getScore(), 1);
+		reviewChangeEventPublisher.publishReviewChangeEvent(restaurant.getId());
 	}
 	
-	// レビューの更新
+	// レビューの更新（評価が変わった場合は店舗の集計値を付け替える）
 	@Transactional
 	public void update(ReviewEditForm reviewEditForm) {
 		Review review = reviewRepository.getReferenceById(reviewEditForm.getId());
+		Integer previousScore = review.getScore();
 		
 		review.setContent(reviewEditForm.getContent());
 		review.setScore(reviewEditForm.getScore());
 		
 		reviewRepository.save(review);
+		
+		Integer restaurantId = review.getRestaurant().getId();
+		if (!previousScore.equals(review.getScore())) {
+			restaurantRepository.addRating(restaurantId, previousScore, -1);
+			restaurantRepository.addRating(restaurantId, review.getScore(), 1);
+		}
+		reviewChangeEventPublisher.publishReviewChangeEvent(restaurantId);
 	}
 	
 	// レビューの削除
 	@Transactional
 	public void delete(Review review) {
+		Integer restaurantId = review.getRestaurant().getId();
+		
+		restaurantRepository.addRating(restaurantId, review.getScore(), -1);
 		reviewRepository.delete(review);
+		reviewChangeEventPublisher.publishReviewChangeEvent(restaurantId);
 	}
 	
 	@Transactional
@@ -0,0 +1,586 @@
+package com.example.nagoyameshi.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.event.CategoryChangeEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+import com.example.nagoyameshi.repository.CategoryRestaurantRepository;
+import com.example.nagoyameshi.repository.RegularHolidayRestaurantRepository;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+
+// カテゴリ・予算・定休日が似ている店舗を、店舗ごとのビット列のJaccard係数で事前に求めておく（お気に入りがまだない店舗でも表示できる）
+// ビット列は [カテゴリIDのビット | 予算の価格帯のビット | 定休日IDのビット] を行ごとに1つのlong配列に並べ、Long.bitCountで共通部分と和集合の大きさを数える
+// 店舗が登録・更新されたら、その店舗の行だけを求め直し、他の行の上位には新しい類似度をTOP_K件の中で差し込む（その店舗が上位から外れた行だけ求め直す）
+// 店舗が削除されたら、その店舗を上位に含んでいた行だけを求め直す
+// カテゴリが削除されたら、そのカテゴリのビットを持っていた行と、それらの行を上位に含む（または新たに含みうる）行だけを求め直す
+@Component
+public class SimilarRestaurantRecommender {
+	public static final int TOP_K = 6;
+	// 予算の価格帯の幅（最低価格～最高価格が重なる価格帯のビットを立てる）
+	private static final int PRICE_UNIT = 1000;
+	// 類似度の重み（カテゴリを最も重視する）
+	private static final double CATEGORY_WEIGHT = 0.6;
+	private static final double PRICE_WEIGHT = 0.25;
+	private static final double HOLIDAY_WEIGHT = 0.15;
+
+	private final RestaurantRepository restaurantRepository;
+	private final CategoryRestaurantRepository categoryRestaurantRepository;
+	private final RegularHolidayRestaurantRepository regularHolidayRestaurantRepository;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// 行番号ごとの店舗IDとビット列（words個ずつ）、類似度の高い店舗ID・類似度
+	private int size;
+	private int categoryWords = 1;
+	private int holidayWords = 1;
+	private int words = categoryWords + 1 + holidayWords;
+	private int[] ids = new int[0];
+	private long[] bits = new long[0];
+	private int[][] neighbours = new int[0][];
+	private double[][] neighbourScores = new double[0][];
+	private Map<Integer, Integer> rows = new HashMap<>();
+
+	public SimilarRestaurantRecommender(RestaurantRepository restaurantRepository, CategoryRestaurantRepository categoryRestaurantRepository,
+			                            RegularHolidayRestaurantRepository regularHolidayRestaurantRepository) {
+		this.restaurantRepository = restaurantRepository;
+		this.categoryRestaurantRepository = categoryRestaurantRepository;
+		this.regularHolidayRestaurantRepository = regularHolidayRestaurantRepository;
+	}
+
+	// 起動時に全店舗から作成する（行ごとの上位は並列に求める）
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		List<Restaurant> restaurants = restaurantRepository.findAll();
+		List<Object[]> categoryPairs = categoryRestaurantRepository.findAllRestaurantIdAndCategoryId();
+		List<Object[]> regularHolidayPairs = regularHolidayRestaurantRepository.findAllRestaurantIdAndRegularHolidayId();
+
+		int maxCategoryId = 0;
+		for (Object[] pair : categoryPairs) {
+			maxCategoryId = Math.max(maxCategoryId, (Integer) pair[1]);
+		}
+		int maxRegularHolidayId = 0;
+		for (Object[] pair : regularHolidayPairs) {
+			maxRegularHolidayId = Math.max(maxRegularHolidayId, (Integer) pair[1]);
+		}
+
+		int newCategoryWords = wordsFor(maxCategoryId);
+		int newHolidayWords = wordsFor(maxRegularHolidayId);
+		int newWords = newCategoryWords + 1 + newHolidayWords;
+		int count = restaurants.size();
+		int[] newIds = new int[count];
+		long[] newBits = new long[count * newWords];
+		Map<Integer, Integer> newRows = new HashMap<>(count * 2);
+
+		for (int row = 0; row < count; row++) {
+			Restaurant restaurant = restaurants.get(row);
+			newIds[row] = restaurant.getId();
+			newRows.put(restaurant.getId(), row);
+			setPriceBits(newBits, row * newWords + newCategoryWords, restaurant);
+		}
+		for (Object[] pair : categoryPairs) {
+			Integer row = newRows.get((Integer) pair[0]);
+			if (row != null) {
+				setBit(newBits, row * newWords, (Integer) pair[1]);
+			}
+		}
+		for (Object[] pair : regularHolidayPairs) {
+			Integer row = newRows.get((Integer) pair[0]);
+			if (row != null) {
+				setBit(newBits, row * newWords + newCategoryWords + 1, (Integer) pair[1]);
+			}
+		}
+
+		int[][] newNeighbours = new int[count][];
+		double[][] newNeighbourScores = new double[count][];
+		IntStream.range(0, count).parallel().forEach(row -> {
+			TopK topK = topKOf(row, count, newCategoryWords, newHolidayWords, newWords, newIds, newBits);
+			newNeighbours[row] = topK.sortedIds();
+			newNeighbourScores[row] = topK.sortedScores();
+		});
+
+		lock.writeLock().lock();
+		try {
+			size = count;
+			categoryWords = newCategoryWords;
+			holidayWords = newHolidayWords;
+			words = newWords;
+			ids = newIds;
+			bits = newBits;
+			neighbours = newNeighbours;
+			neighbourScores = newNeighbourScores;
+			rows = newRows;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 店舗の登録・更新（カテゴリと定休日を含む）・削除がコミットされたら、影響のある行だけを求め直す
+	@TransactionalEventListener
+	public void onRestaurantChange(RestaurantChangeEvent restaurantChangeEvent) {
+		Integer restaurantId = restaurantChangeEvent.getRestaurantId();
+
+		if (restaurantChangeEvent.isDeleted()) {
+			remove(restaurantId);
+			return;
+		}
+
+		restaurantRepository.findById(restaurantId).ifPresent(restaurant -> {
+			List<Integer> categoryIds = categoryRestaurantRepository.findCategoryIdsByRestaurantOrderByIdAsc(restaurant);
+			List<Integer> regularHolidayIds = regularHolidayRestaurantRepository.findRegularHolidayIdsByRestaurantOrderByRegularHolidayIdAsc(restaurant);
+			put(restaurant, categoryIds, regularHolidayIds);
+		});
+	}
+
+	// カテゴリが削除されたら、各店舗のカテゴリからも削除されているため、そのビットを落とす（全件の作り直しはしない）
+	@TransactionalEventListener
+	public void onCategoryChange(CategoryChangeEvent categoryChangeEvent) {
+		if (categoryChangeEvent.isDeleted()) {
+			removeCategory(categoryChangeEvent.getCategoryId());
+		}
+	}
+
+	// 似ている店舗ID（類似度の高い順、最大TOP_K件）
+	public List<Integer> findSimilarRestaurantIds(Integer restaurantId) {
+		List<Integer> restaurantIds = new ArrayList<>();
+
+		lock.readLock().lock();
+		try {
+			Integer row = rows.get(restaurantId);
+			if (row != null) {
+				for (int neighbour : neighbours[row]) {
+					restaurantIds.add(neighbour);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return restaurantIds;
+	}
+
+	private void put(Restaurant restaurant, Collection<Integer> categoryIds, Collection<Integer> regularHolidayIds) {
+		lock.writeLock().lock();
+		try {
+			// 用意したワード数に収まらないIDが現れたら、ビット列の幅を広げる（既存の行の類似度は変わらないため上位は求め直さない）
+			int maxCategoryId = maxOf(categoryIds);
+			int maxRegularHolidayId = maxOf(regularHolidayIds);
+			if (maxCategoryId >= categoryWords * Long.SIZE || maxRegularHolidayId >= holidayWords * Long.SIZE) {
+				widen(Math.max(categoryWords, wordsFor(maxCategoryId)), Math.max(holidayWords, wordsFor(maxRegularHolidayId)));
+			}
+
+			Integer row = rows.get(restaurant.getId());
+
+			if (row == null) {
+				row = size++;
+				ensureCapacity(size);
+				rows.put(restaurant.getId(), row);
+				ids[row] = restaurant.getId();
+			}
+
+			int offset = row * words;
+			Arrays.fill(bits, offset, offset + words, 0L);
+			for (Integer categoryId : categoryIds) {
+				setBit(bits, offset, categoryId);
+			}
+			setPriceBits(bits, offset + categoryWords, restaurant);
+			for (Integer regularHolidayId : regularHolidayIds) {
+				setBit(bits, offset + categoryWords + 1, regularHolidayId);
+			}
+
+			refresh(row);
+
+			// 他の店舗の上位には、この店舗の新しい類似度だけを反映する
+			for (int other = 0; other < size; other++) {
+				if (other != row) {
+					updateNeighbour(other, ids[row], score(other, row, categoryWords, holidayWords, words, bits));
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void remove(Integer restaurantId) {
+		lock.writeLock().lock();
+		try {
+			Integer row = rows.remove(restaurantId);
+
+			if (row == null) {
+				return;
+			}
+
+			// 最後の行を削除した行に移して詰める
+			int last = --size;
+			if (row != last) {
+				ids[row] = ids[last];
+				System.arraycopy(bits, last * words, bits, row * words, words);
+				neighbours[row] = neighbours[last];
+				neighbourScores[row] = neighbourScores[last];
+				rows.put(ids[row], row);
+			}
+			neighbours[last] = null;
+			neighbourScores[last] = null;
+
+			// 上位に空きがあった行は類似度が正の店舗を全て含んでいたため、取り除くだけでよい（埋まっていた行は代わりに入る店舗を求め直す）
+			for (int other = 0; other < size; other++) {
+				int index = indexOf(neighbours[other], restaurantId);
+				if (index < 0) {
+					continue;
+				}
+				if (neighbours[other].length < TOP_K) {
+					replaceNeighbour(other, index, restaurantId, 0);
+				} else {
+					refresh(other);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// 変更された店舗の新しい類似度を、rowの上位にTOP_K件の中で反映する
+	// 上位に含まれていた店舗の類似度が下がって上位の外の店舗と入れ替わりうる場合だけ、全ての行との類似度から求め直す
+	private void updateNeighbour(int row, int restaurantId, double score) {
+		int[] rowNeighbours = neighbours[row];
+		int index = indexOf(rowNeighbours, restaurantId);
+
+		if (index < 0) {
+			if (qualifies(row, score, restaurantId)) {
+				replaceNeighbour(row, -1, restaurantId, score);
+			}
+			return;
+		}
+
+		// 上位の外の店舗は全て元の最下位より下位のため、上位に空きがあった（類似度が正の店舗を全て含んでいた）か、
+		// 新しい類似度が元の最下位を下回らなければ、上位の外の店舗とは入れ替わらない
+		int worst = rowNeighbours.length - 1;
+		if (rowNeighbours.length < TOP_K || (score > 0 && !isBetter(neighbourScores[row][worst], rowNeighbours[worst], score, restaurantId))) {
+			replaceNeighbour(row, index, restaurantId, score);
+		} else {
+			refresh(row);
+		}
+	}
+
+	// rowの上位からindexの店舗を除き（indexが負なら除かない）、類似度が正ならrestaurantIdを加えて上位TOP_K件に並べ直す
+	private void replaceNeighbour(int row, int index, int restaurantId, double score) {
+		TopK topK = new TopK();
+
+		for (int i = 0; i < neighbours[row].length; i++) {
+			if (i != index) {
+				topK.offer(neighbours[row][i], neighbourScores[row][i]);
+			}
+		}
+		if (score > 0) {
+			topK.offer(restaurantId, score);
+		}
+
+		neighbours[row] = topK.sortedIds();
+		neighbourScores[row] = topK.sortedScores();
+	}
+
+	// カテゴリのビットを全ての行から落とし、ビットを持っていた行と、その行との類似度が変わる行の上位を求め直す
+	// ビットを持たない行同士の類似度は変わらず、持っていた行との類似度は上がる（和集合だけが小さくなる）ため、その行が新たに上位に入るかを調べる
+	private void removeCategory(Integer categoryId) {
+		lock.writeLock().lock();
+		try {
+			if (categoryId >= categoryWords * Long.SIZE) {
+				return;
+			}
+
+			int word = categoryId / Long.SIZE;
+			long mask = 1L << (categoryId % Long.SIZE);
+			BitSet affected = new BitSet(size);
+
+			for (int row = 0; row < size; row++) {
+				int index = row * words + word;
+				if ((bits[index] & mask) != 0) {
+					bits[index] &= ~mask;
+					affected.set(row);
+				}
+			}
+
+			for (int row = affected.nextSetBit(0); row >= 0; row = affected.nextSetBit(row + 1)) {
+				refresh(row);
+			}
+
+			for (int other = 0; other < size; other++) {
+				if (!affected.get(other) && (containsAny(neighbours[other], affected) || anyQualifies(other, affected))) {
+					refresh(other);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// カテゴリ・定休日のワード数を広げて、全ての行のビット列を並べ直す
+	private void widen(int newCategoryWords, int newHolidayWords) {
+		int newWords = newCategoryWords + 1 + newHolidayWords;
+		long[] newBits = new long[ids.length * newWords];
+
+		for (int row = 0; row < size; row++) {
+			int offset = row * words;
+			int newOffset = row * newWords;
+			System.arraycopy(bits, offset, newBits, newOffset, categoryWords);
+			newBits[newOffset + newCategoryWords] = bits[offset + categoryWords];
+			System.arraycopy(bits, offset + categoryWords + 1, newBits, newOffset + newCategoryWords + 1, holidayWords);
+		}
+
+		categoryWords = newCategoryWords;
+		holidayWords = newHolidayWords;
+		words = newWords;
+		bits = newBits;
+	}
+
+	private boolean containsAny(int[] restaurantIds, BitSet affectedRows) {
+		for (int restaurantId : restaurantIds) {
+			Integer row = rows.get(restaurantId);
+			if (row != null && affectedRows.get(row)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean anyQualifies(int row, BitSet candidateRows) {
+		for (int candidate = candidateRows.nextSetBit(0); candidate >= 0; candidate = candidateRows.nextSetBit(candidate + 1)) {
+			if (qualifies(row, score(row, candidate, categoryWords, holidayWords, words, bits), ids[candidate])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void refresh(int row) {
+		TopK topK = topKOf(row, size, categoryWords, holidayWords, words, ids, bits);
+		neighbours[row] = topK.sortedIds();
+		neighbourScores[row] = topK.sortedScores();
+	}
+
+	// 上位がTOP_K件に満たないか、最下位より類似度が高ければ上位に入る
+	private boolean qualifies(int row, double score, int restaurantId) {
+		int[] rowNeighbours = neighbours[row];
+		if (score <= 0) {
+			return false;
+		}
+		if (rowNeighbours.length < TOP_K) {
+			return true;
+		}
+		int worst = rowNeighbours.length - 1;
+		return isBetter(score, restaurantId, neighbourScores[row][worst], rowNeighbours[worst]);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= ids.length) {
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, ids.length * 2);
+		ids = Arrays.copyOf(ids, newCapacity);
+		bits = Arrays.copyOf(bits, newCapacity * words);
+		neighbours = Arrays.copyOf(neighbours, newCapacity);
+		neighbourScores = Arrays.copyOf(neighbourScores, newCapacity);
+	}
+
+	// rowと他の全ての行との類似度を求め、上位TOP_K件をヒープで選ぶ
+	private static TopK topKOf(int row, int count, int categoryWords, int holidayWords, int words, int[] ids, long[] bits) {
+		TopK topK = new TopK();
+
+		for (int other = 0; other < count; other++) {
+			if (other != row) {
+				double score = score(row, other, categoryWords, holidayWords, words, bits);
+				if (score > 0) {
+					topK.offer(ids[other], score);
+				}
+			}
+		}
+
+		return topK;
+	}
+
+	// カテゴリ・価格帯・定休日それぞれのJaccard係数の重み付きの和（カテゴリを1つも共有しない場合は0）
+	// 分岐のないワード単位のループにして、JITがpopcnt命令でまとめて処理できるようにする
+	private static double score(int rowA, int rowB, int categoryWords, int holidayWords, int words, long[] bits) {
+		int offsetA = rowA * words;
+		int offsetB = rowB * words;
+		int categoryIntersection = 0;
+		int categoryUnion = 0;
+
+		for (int w = 0; w < categoryWords; w++) {
+			long a = bits[offsetA + w];
+			long b = bits[offsetB + w];
+			categoryIntersection += Long.bitCount(a & b);
+			categoryUnion += Long.bitCount(a | b);
+		}
+
+		if (categoryIntersection == 0) {
+			return 0;
+		}
+
+		long priceA = bits[offsetA + categoryWords];
+		long priceB = bits[offsetB + categoryWords];
+		int holidayIntersection = 0;
+		int holidayUnion = 0;
+
+		for (int w = categoryWords + 1; w < categoryWords + 1 + holidayWords; w++) {
+			long a = bits[offsetA + w];
+			long b = bits[offsetB + w];
+			holidayIntersection += Long.bitCount(a & b);
+			holidayUnion += Long.bitCount(a | b);
+		}
+
+		return CATEGORY_WEIGHT * categoryIntersection / categoryUnion
+				+ PRICE_WEIGHT * jaccard(Long.bitCount(priceA & priceB), Long.bitCount(priceA | priceB))
+				+ HOLIDAY_WEIGHT * jaccard(holidayIntersection, holidayUnion);
+	}
+
+	// どちらも空（定休日なし同士など）の場合は一致とみなす
+	private static double jaccard(int intersection, int union) {
+		return union == 0 ? 1.0 : (double) intersection / union;
+	}
+
+	// IDの最大値までのビットを収めるワード数（IDが追加されても広げ直さずに済むよう、1ワード分の余裕を持たせる）
+	private static int wordsFor(int maxId) {
+		return maxId / Long.SIZE + 2;
+	}
+
+	private static int maxOf(Collection<Integer> values) {
+		int max = 0;
+		for (Integer value : values) {
+			max = Math.max(max, value);
+		}
+		return max;
+	}
+
+	private static void setBit(long[] bits, int offset, int index) {
+		bits[offset + index / Long.SIZE] |= 1L << (index % Long.SIZE);
+	}
+
+	// 最低価格～最高価格にかかる価格帯のビットを立てる（上限を超える価格は最後の価格帯にまとめる）
+	private static void setPriceBits(long[] bits, int offset, Restaurant restaurant) {
+		if (restaurant.getLowestPrice() == null || restaurant.getHighestPrice() == null) {
+			return;
+		}
+
+		int from = Math.min(restaurant.getLowestPrice() / PRICE_UNIT, Long.SIZE - 1);
+		int to = Math.min(restaurant.getHighestPrice() / PRICE_UNIT, Long.SIZE - 1);
+		for (int bucket = from; bucket <= to; bucket++) {
+			bits[offset] |= 1L << bucket;
+		}
+	}
+
+	private static int indexOf(int[] restaurantIds, int restaurantId) {
+		for (int i = 0; i < restaurantIds.length; i++) {
+			if (restaurantIds[i] == restaurantId) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// 類似度が高い方、同じなら店舗IDが小さい方を上位とする
+	private static boolean isBetter(double score, int restaurantId, double otherScore, int otherRestaurantId) {
+		return score > otherScore || (score == otherScore && restaurantId < otherRestaurantId);
+	}
+
+	// 上位TOP_K件を保つ最小ヒープ（根が最下位）
+	private static class TopK {
+		private final int[] ids = new int[TOP_K];
+		private final double[] scores = new double[TOP_K];
+		private int count;
+		private boolean sorted;
+
+		private void offer(int id, double score) {
+			if (count < TOP_K) {
+				ids[count] = id;
+				scores[count] = score;
+				siftUp(count++);
+			} else if (isBetter(score, id, scores[0], ids[0])) {
+				ids[0] = id;
+				scores[0] = score;
+				siftDown(0);
+			}
+		}
+
+		// 根から取り出して後ろから詰め、類似度の高い順に並べる
+		private int[] sortedIds() {
+			sort();
+			return Arrays.copyOf(ids, count);
+		}
+
+		private double[] sortedScores() {
+			sort();
+			return Arrays.copyOf(scores, count);
+		}
+
+		private void sort() {
+			if (sorted) {
+				return;
+			}
+			for (int end = count - 1; end > 0; end--) {
+				swap(0, end);
+				siftDown(0, end);
+			}
+			sorted = true;
+		}
+
+		private void siftUp(int index) {
+			while (index > 0) {
+				int parent = (index - 1) / 2;
+				if (!isBetter(scores[parent], ids[parent], scores[index], ids[index])) {
+					break;
+				}
+				swap(index, parent);
+				index = parent;
+			}
+		}
+
+		private void siftDown(int index) {
+			siftDown(index, count);
+		}
+
+		private void siftDown(int index, int end) {
+			while (true) {
+				int worst = index;
+				int left = index * 2 + 1;
+				int right = left + 1;
+				if (left < end && isBetter(scores[worst], ids[worst], scores[left], ids[left])) {
+					worst = left;
+				}
+				if (right < end && isBetter(scores[worst], ids[worst], scores[right], ids[right])) {
+					worst = right;
+				}
+				if (worst == index) {
+					return;
+				}
+				swap(index, worst);
+				index = worst;
+			}
+		}
+
+		private void swap(int i, int j) {
+			int id = ids[i];
+			ids[i] = ids[j];
+			ids[j] = id;
+			double score = scores[i];
+			scores[i] = scores[j];
+			scores[j] = score;
+		}
+	}
+
+}
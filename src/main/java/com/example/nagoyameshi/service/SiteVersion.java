@@ -0,0 +1,35 @@
+package com.example.nagoyameshi.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.nagoyameshi.event.CategoryChangeEvent;
+import com.example.nagoyameshi.event.RestaurantChangeEvent;
+
+// 条件付きGETの検証子に使う、ページ全体に関わる最終更新時刻
+// 起動時刻から始めるため、デプロイでテンプレートが変わった場合も以前の検証子は一致しなくなる
+// 店舗のカテゴリ・定休日の付け替えやカテゴリ名の変更はrestaurants.updated_atに現れないため、ここで時刻を進める
+@Component
+public class SiteVersion {
+	private volatile long lastModified = System.currentTimeMillis();
+
+	@TransactionalEventListener
+	public void onRestaurantChange(RestaurantChangeEvent restaurantChangeEvent) {
+		touch();
+	}
+
+	@TransactionalEventListener
+	public void onCategoryChange(CategoryChangeEvent categoryChangeEvent) {
+		touch();
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	// 同じミリ秒に続けて更新されても前の値より必ず大きくする
+	private synchronized void touch() {
+		lastModified = Math.max(lastModified + 1, System.currentTimeMillis());
+	}
+
+}
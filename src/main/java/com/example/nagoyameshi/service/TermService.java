@@ -2,17 +2,23 @@ package com.example.nagoyameshi.service;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.example.nagoyameshi.entity.Term;
 import com.example.nagoyameshi.form.TermEditForm;
 import com.example.nagoyameshi.repository.TermRepository;
 
+import jakarta.persistence.EntityManagerFactory;
+
 @Service
 public class TermService {
 	private final TermRepository termRepository;
+	private final EntityManagerFactory entityManagerFactory;
 	
-	public TermService(TermRepository termRepository) {
+	public TermService(TermRepository termRepository, EntityManagerFactory entityManagerFactory) {
 		this.termRepository = termRepository;
+		this.entityManagerFactory = entityManagerFactory;
 	}
 	
 	@Transactional
@@ -22,6 +28,15 @@ public class TermService {
 		term.setContent(termEditForm.getContent());
 		
 		termRepository.save(term);
+		
+		// 2次キャッシュの値はupdated_atが古いままなので、コミット後に取り除く
+		Integer termId = term.getId();
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				entityManagerFactory.getCache().evict(Term.class, termId);
+			}
+		});
 	}
 
 }
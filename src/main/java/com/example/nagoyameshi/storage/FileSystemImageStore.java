@@ -0,0 +1,175 @@
+package com.example.nagoyameshi.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+// 店舗画像をディレクトリに保存する（既定はカレントディレクトリのstorage）
+// アップロードされたファイルは読みながらSHA-256を求めて一時ファイルに書き出し、同じディレクトリ内でのリネームで公開する（全体をメモリに読み込まず、書きかけのファイルが表示されることもない）
+// 見つからない画像は初期データの画像（classpath:/static/storage/）を探す（/storage/** はStorageControllerが配信する）
+@Component
+@ConditionalOnProperty(name = "nagoyameshi.image-store.type", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemImageStore implements ImageStore {
+	// 保存した画像のファイル名（SHA-256の16進表記＋拡張子）と、そのサイズ違いのファイル名（SHA-256の16進表記-幅w.jpg）
+	private static final Pattern STORED_NAME = Pattern.compile("^([0-9a-f]{64})(-\\d+w)?(\\.[a-z0-9]{1,5})?$");
+	private static final Pattern EXTENSION = Pattern.compile("^[a-z0-9]{1,5}$");
+	private static final String TEMPORARY_PREFIX = ".upload-";
+	
+	private final Path directory;
+	
+	public FileSystemImageStore(@Value("${nagoyameshi.image-store.directory:storage}") String directory) throws IOException {
+		this.directory = Paths.get(directory).toAbsolutePath().normalize();
+		Files.createDirectories(this.directory);
+	}
+	
+	@Override
+	public String store(MultipartFile image) throws IOException {
+		Path temporaryFile = Files.createTempFile(directory, TEMPORARY_PREFIX, ".tmp");
+		
+		try {
+			MessageDigest messageDigest = newSha256();
+			try (InputStream inputStream = new DigestInputStream(image.getInputStream(), messageDigest)) {
+				Files.copy(inputStream, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+			
+			String name = HexFormat.of().formatHex(messageDigest.digest()) + extensionOf(image.getOriginalFilename());
+			Path file = directory.resolve(name);
+			
+			if (Files.exists(file)) {
+				// 保存済みの画像を使い回す（参照されていない画像の削除で消されないよう、保存した時刻を更新する）
+				Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+			} else {
+				Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE);
+			}
+			
+			return name;
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+	
+	@Override
+	public InputStream open(String name) throws IOException {
+		Resource resource = load(name);
+		if (resource == null) {
+			throw new NoSuchFileException(name);
+		}
+		
+		return resource.getInputStream();
+	}
+	
+	// ディレクトリになければ初期データの画像を探す
+	@Override
+	public Resource load(String name) {
+		Path file = resolve(name);
+		if (Files.isRegularFile(file)) {
+			return new FileSystemResource(file);
+		}
+		
+		ClassPathResource resource = new ClassPathResource("static/storage/" + name);
+		return resource.exists() ? resource : null;
+	}
+	
+	@Override
+	public boolean isImmutable(String name) {
+		return STORED_NAME.matcher(name).matches();
+	}
+	
+	@Override
+	public void storeVariant(String name, byte[] content) throws IOException {
+		Path temporaryFile = Files.createTempFile(directory, TEMPORARY_PREFIX, ".tmp");
+		
+		try {
+			Files.write(temporaryFile, content);
+			Files.move(temporaryFile, resolve(name), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+	
+	@Override
+	public int deleteUnreferenced(Set<String> referencedNames, Duration gracePeriod) throws IOException {
+		Instant threshold = Instant.now().minus(gracePeriod);
+		int deleted = 0;
+		
+		// サイズ違いは元の画像と同じハッシュで判定する
+		Set<String> referencedHashes = new HashSet<>();
+		for (String referencedName : referencedNames) {
+			Matcher matcher = STORED_NAME.matcher(referencedName);
+			if (matcher.matches()) {
+				referencedHashes.add(matcher.group(1));
+			}
+		}
+		
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				// 保存した画像・サイズ違いと、中断されたアップロードの一時ファイルだけを対象にする
+				Matcher matcher = STORED_NAME.matcher(name);
+				boolean storedImage = matcher.matches() && !referencedHashes.contains(matcher.group(1));
+				boolean abandonedUpload = name.startsWith(TEMPORARY_PREFIX);
+				
+				if ((storedImage || abandonedUpload) && Files.getLastModifiedTime(file).toInstant().isBefore(threshold) && Files.deleteIfExists(file)) {
+					deleted++;
+				}
+			}
+		}
+		
+		return deleted;
+	}
+	
+	// データベースに保存されたファイル名をこのディレクトリのパスにする（ディレクトリの外は指さない）
+	private Path resolve(String name) {
+		Path file = directory.resolve(name).normalize();
+		if (!file.getParent().equals(directory)) {
+			throw new IllegalArgumentException("Invalid image name: " + name);
+		}
+		return file;
+	}
+	
+	// 元のファイル名の拡張子（小文字、英数字5文字まで）。ない場合や使えない文字を含む場合は付けない
+	private static String extensionOf(String originalFilename) {
+		if (originalFilename == null) {
+			return "";
+		}
+		
+		int index = originalFilename.lastIndexOf('.');
+		String extension = index >= 0 ? originalFilename.substring(index + 1).toLowerCase(Locale.ROOT) : "";
+		
+		return EXTENSION.matcher(extension).matches() ? "." + extension : "";
+	}
+	
+	private static MessageDigest newSha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.example.nagoyameshi.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+// 店舗画像の保存先
+// nagoyameshi.image-store.type で切り替える（filesystem：nagoyameshi.image-store.directory のディレクトリ（既定））
+// ファイル名は画像の内容のSHA-256から決めるため、同じ画像は1つだけ保存され、保存した画像の内容は変わらない
+public interface ImageStore {
+	// 画像を保存し、/storage/以下で表示するときのファイル名を返す（同じ内容の画像が保存済みであればそのファイル名を返す）
+	public String store(MultipartFile image) throws IOException;
+	
+	// 保存した画像を読み込む（見つからない場合はNoSuchFileExceptionを投げる）
+	public InputStream open(String name) throws IOException;
+	
+	// 保存した画像（見つからない場合はnull）。ローカルのファイルであればResource.isFile()がtrueになり、配信時にファイルから直接送る
+	public Resource load(String name);
+	
+	// 内容から決めたファイル名（画像・サイズ違い）か（同じ名前で内容が変わらないため、ブラウザに期限なくキャッシュさせられる）
+	public boolean isImmutable(String name);
+	
+	// 画像のサイズ違いを保存する（同じ名前のものがあれば置き換える）
+	public void storeVariant(String name, byte[] content) throws IOException;
+	
+	// referencedNamesに含まれない画像とそのサイズ違いを削除し、削除した件数を返す（保存してからgracePeriodが経っていないものは残す）
+	public int deleteUnreferenced(Set<String> referencedNames, Duration gracePeriod) throws IOException;
+
+}
@@ -0,0 +1,48 @@
+package com.example.nagoyameshi.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 店舗画像のサイズ違い（幅を固定したJPEG）
+// ファイル名は元の画像のファイル名から決める（例：abc.png の幅480ピクセルのものは abc-480w.jpg）
+public enum ImageVariant {
+	// 管理画面やスマートフォンの2列表示のカード
+	THUMBNAIL(160),
+	// 店舗一覧・トップページのカード
+	CARD(480),
+	// 店舗詳細ページ
+	DETAIL(960);
+	
+	private final int width;
+	
+	private ImageVariant(int width) {
+		this.width = width;
+	}
+	
+	public int getWidth() {
+		return width;
+	}
+	
+	public static String nameOf(String image, int width) {
+		int index = image.lastIndexOf('.');
+		String stem = index > 0 ? image.substring(0, index) : image;
+		
+		return stem + "-" + width + "w.jpg";
+	}
+	
+	// img要素のsrcset属性の値（作成済みのサイズ違いがなければnullを返し、属性を出力しない）
+	// imageWidthsは作成済みのサイズ違いの幅をカンマ区切りにしたもの（restaurants.image_widths）
+	public static String srcsetOf(String storagePath, String image, String imageWidths) {
+		if (image == null || imageWidths == null || imageWidths.isEmpty()) {
+			return null;
+		}
+		
+		List<String> candidates = new ArrayList<>();
+		for (String width : imageWidths.split(",")) {
+			candidates.add(storagePath + nameOf(image, Integer.parseInt(width)) + " " + width + "w");
+		}
+		
+		return String.join(", ", candidates);
+	}
+
+}
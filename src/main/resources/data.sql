@@ -624,4 +624,16 @@ INSERT IGNORE INTO favorites (id, restaurant_id, user_id) VALUES
 
 -- reviewsテーブル
 INSERT IGNORE INTO reviews (id, content, score, restaurant_id, user_id) VALUES
-(1, '店内の雰囲気も良く、味も美味しかったです。', 5, 1, 1);
\ No newline at end of file
+(1, '店内の雰囲気も良く、味も美味しかったです。', 5, 1, 1);
+
+-- restaurantsテーブルのレビュー・お気に入りの集計値（上で投入したレビュー・お気に入りから求める）
+UPDATE restaurants r
+SET r.rating_sum = (SELECT COALESCE(SUM(score), 0) FROM reviews WHERE restaurant_id = r.id),
+    r.rating_count = (SELECT COUNT(*) FROM reviews WHERE restaurant_id = r.id),
+    r.rating_average = IF(r.rating_count > 0, r.rating_sum / r.rating_count, 0),
+    r.rating_1_count = (SELECT COUNT(*) FROM reviews WHERE restaurant_id = r.id AND score = 1),
+    r.rating_2_count = (SELECT COUNT(*) FROM reviews WHERE restaurant_id = r.id AND score = 2),
+    r.rating_3_count = (SELECT COUNT(*) FROM reviews WHERE restaurant_id = r.id AND score = 3),
+    r.rating_4_count = (SELECT COUNT(*) FROM reviews WHERE restaurant_id = r.id AND score = 4),
+    r.rating_5_count = (SELECT COUNT(*) FROM reviews WHERE restaurant_id = r.id AND score = 5),
+    r.favorite_count = (SELECT COUNT(*) FROM favorites WHERE restaurant_id = r.id);
\ No newline at end of file
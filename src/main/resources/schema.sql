@@ -34,6 +34,8 @@ CREATE TABLE IF NOT EXISTS roles (
      id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
      name VARCHAR(50) NOT NULL,
      image VARCHAR(255),
+     image_widths VARCHAR(50),
+     image_placeholder VARCHAR(2048),
      description TEXT NOT NULL,
      lowest_price INT NOT NULL,
      highest_price INT NOT NULL,
@@ -42,14 +44,31 @@ CREATE TABLE IF NOT EXISTS roles (
      opening_time TIME NOT NULL,
      closing_time TIME NOT NULL,
      seating_capacity INT NOT NULL,
+     rating_sum INT NOT NULL DEFAULT 0,
+     rating_count INT NOT NULL DEFAULT 0,
+     rating_average DECIMAL(3, 2) NOT NULL DEFAULT 0,
+     rating_1_count INT NOT NULL DEFAULT 0,
+     rating_2_count INT NOT NULL DEFAULT 0,
+     rating_3_count INT NOT NULL DEFAULT 0,
+     rating_4_count INT NOT NULL DEFAULT 0,
+     rating_5_count INT NOT NULL DEFAULT 0,
+     favorite_count INT NOT NULL DEFAULT 0,
      created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
-     updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+     updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+     INDEX idx_restaurants_created_at (created_at),
+     INDEX idx_restaurants_rating_average (rating_average),
+     INDEX idx_restaurants_favorite_count (favorite_count),
+     INDEX idx_restaurants_lowest_price (lowest_price),
+     INDEX idx_restaurants_highest_price (highest_price),
+     INDEX idx_restaurants_price_range (lowest_price, highest_price),
+     FULLTEXT INDEX ft_restaurants_keyword (name, address, description) WITH PARSER ngram
  );
  
  CREATE TABLE IF NOT EXISTS regular_holidays (
      id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
      day VARCHAR(50) NOT NULL,
-     day_index INT
+     day_index INT,
+     INDEX idx_regular_holidays_day_index (day_index)
  );
  
  CREATE TABLE IF NOT EXISTS regular_holiday_restaurant (
@@ -59,6 +78,7 @@ CREATE TABLE IF NOT EXISTS roles (
      created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
      updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
      UNIQUE (restaurant_id, regular_holiday_id),
+     INDEX idx_regular_holiday_restaurant_holiday (regular_holiday_id, restaurant_id),
      FOREIGN KEY (restaurant_id) REFERENCES restaurants (id),
      FOREIGN KEY (regular_holiday_id) REFERENCES regular_holidays (id)
  );
@@ -75,6 +95,7 @@ CREATE TABLE IF NOT EXISTS roles (
      created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
      updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
      UNIQUE (restaurant_id, category_id),
+     INDEX idx_category_restaurant_category (category_id, restaurant_id),
      FOREIGN KEY (restaurant_id) REFERENCES restaurants (id),
      FOREIGN KEY (category_id) REFERENCES categories (id)
  );
@@ -0,0 +1,46 @@
+// キーワード入力欄の入力候補（data-autocomplete-url属性を持つ入力欄が対象）
+document.querySelectorAll('input[data-autocomplete-url]').forEach((keywordInput) => {
+    const suggestionList = document.createElement('div');
+    suggestionList.className = 'list-group nagoyameshi-suggestion-list d-none';
+    keywordInput.parentElement.classList.add('position-relative');
+    keywordInput.parentElement.appendChild(suggestionList);
+
+    const typeLabels = { category: 'カテゴリ', area: 'エリア', restaurant: '店舗' };
+    let controller = null;
+
+    keywordInput.addEventListener('input', () => {
+        let q = keywordInput.value.trim();
+
+        // 前の入力に対するリクエストは取り消す
+        if (controller) {
+            controller.abort();
+        }
+
+        if (q === '') {
+            suggestionList.classList.add('d-none');
+            return;
+        }
+
+        controller = new AbortController();
+        fetch(`${keywordInput.dataset.autocompleteUrl}?q=${encodeURIComponent(q)}`, { signal: controller.signal })
+            .then((response) => response.json())
+            .then((suggestions) => {
+                suggestionList.replaceChildren(...suggestions.map((suggestion) => {
+                    let item = document.createElement('a');
+                    item.className = 'list-group-item list-group-item-action';
+                    item.href = suggestion.url;
+                    item.textContent = `${suggestion.label}（${typeLabels[suggestion.type]}）`;
+                    return item;
+                }));
+                suggestionList.classList.toggle('d-none', suggestions.length === 0);
+            })
+            .catch(() => {});
+    });
+
+    // 入力欄の外をクリックしたら候補を閉じる
+    document.addEventListener('click', (event) => {
+        if (!keywordInput.parentElement.contains(event.target)) {
+            suggestionList.classList.add('d-none');
+        }
+    });
+});
@@ -0,0 +1,104 @@
+package com.example.nagoyameshi.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FuzzyNameIndexTests {
+	private FuzzyNameIndex fuzzyNameIndex;
+
+	// データベースは使わず、店舗名だけを登録する
+	@BeforeEach
+	void setUp() {
+		fuzzyNameIndex = new FuzzyNameIndex(null);
+		fuzzyNameIndex.put(1, "ひつまぶし本舗");
+		fuzzyNameIndex.put(2, "きしめん亭");
+		fuzzyNameIndex.put(3, "きしめん邸");
+		fuzzyNameIndex.put(4, "ミソカツ矢場");
+		fuzzyNameIndex.put(5, "Nagoya Curry");
+	}
+
+	// 入力ミス（1文字違い）でも見つかること
+	@Test
+	void findsNameWithTypo() {
+		assertThat(fuzzyNameIndex.search("ひつまぶす", 10)).containsExactly(1);
+	}
+
+	// ローマ字とかなの違い、カタカナとひらがなの違いを同じ名前として扱うこと
+	@Test
+	void foldsRomajiAndKana() {
+		assertThat(fuzzyNameIndex.search("hitsumabushi", 10)).containsExactly(1);
+		assertThat(fuzzyNameIndex.search("ヒツマブシ", 10)).containsExactly(1);
+		assertThat(fuzzyNameIndex.search("みそかつ", 10)).containsExactly(4);
+		assertThat(fuzzyNameIndex.search("misokatsu", 10)).containsExactly(4);
+		assertThat(fuzzyNameIndex.search("なごや", 10)).containsExactly(5);
+	}
+
+	// 店舗名の一部だけのキーワードでも、名前の前後の余りは距離に数えないこと
+	@Test
+	void matchesPartOfName() {
+		assertThat(fuzzyNameIndex.search("まぶし", 10)).containsExactly(1);
+		assertThat(fuzzyNameIndex.search("curry", 10)).containsExactly(5);
+	}
+
+	// 編集距離の小さい順、同じ距離ならID順に並ぶこと
+	@Test
+	void ordersByDistanceThenId() {
+		assertThat(fuzzyNameIndex.search("きしめん邸", 10)).containsExactly(3, 2);
+		assertThat(fuzzyNameIndex.search("きしめん", 10)).containsExactly(2, 3);
+		assertThat(fuzzyNameIndex.search("きしめん", 1)).containsExactly(2);
+	}
+
+	// 1文字のキーワードや、3文字以下で一致しないキーワードでは何も返さないこと
+	@Test
+	void ignoresShortQueries() {
+		assertThat(fuzzyNameIndex.search("ひ", 10)).isEmpty();
+		assertThat(fuzzyNameIndex.search("ひつみ", 10)).isEmpty();
+	}
+
+	// 取り除いた店舗や、名前を変えた店舗の古い名前では見つからないこと
+	@Test
+	void forgetsRemovedAndRenamedRestaurants() {
+		fuzzyNameIndex.put(1, null);
+		fuzzyNameIndex.put(2, "みそにこみ本店");
+
+		assertThat(fuzzyNameIndex.search("ひつまぶし", 10)).isEmpty();
+		assertThat(fuzzyNameIndex.search("きしめん", 10)).containsExactly(3);
+		assertThat(fuzzyNameIndex.search("みそにこみ", 10)).containsExactly(2);
+	}
+
+	// 2-gramの絞り込みで、距離の上限以内の名前は候補から漏れず、関係のない名前は候補に入らないこと
+	@Test
+	void findCandidatesSharesEnoughGrams() {
+		List<Integer> candidateIds = fuzzyNameIndex.findCandidates("ひつまぶす", 1).stream()
+				                                   .map(FuzzyNameIndex.Key::restaurantId)
+				                                   .toList();
+
+		assertThat(candidateIds).contains(1).doesNotContain(2, 3, 4, 5);
+	}
+
+	// 短い語ほど許容する編集距離を小さくすること（3文字以下は0、6文字まで1、10文字まで2、それより長ければ3）
+	@Test
+	void maxDistanceOfGrowsWithLength() {
+		assertThat(FuzzyNameIndex.maxDistanceOf("ひつ")).isEqualTo(0);
+		assertThat(FuzzyNameIndex.maxDistanceOf("ひつま")).isEqualTo(0);
+		assertThat(FuzzyNameIndex.maxDistanceOf("ひつまぶ")).isEqualTo(1);
+		assertThat(FuzzyNameIndex.maxDistanceOf("ひつまぶし亭")).isEqualTo(1);
+		assertThat(FuzzyNameIndex.maxDistanceOf("ひつまぶし本舗だ")).isEqualTo(2);
+		assertThat(FuzzyNameIndex.maxDistanceOf("abcdefghij")).isEqualTo(2);
+		assertThat(FuzzyNameIndex.maxDistanceOf("abcdefghijk")).isEqualTo(3);
+	}
+
+	// 名前の一部分との距離を返し、上限を超えたら上限 + 1で打ち切ること
+	@Test
+	void distanceMatchesSubstringOfTarget() {
+		assertThat(FuzzyNameIndex.distance("まぶし", "ひつまぶし本舗", 0)).isEqualTo(0);
+		assertThat(FuzzyNameIndex.distance("ひつまぶす", "ひつまぶし本舗", 1)).isEqualTo(1);
+		assertThat(FuzzyNameIndex.distance("ひまぶし", "ひつまぶし本舗", 1)).isEqualTo(1);
+		assertThat(FuzzyNameIndex.distance("らーめん", "ひつまぶし本舗", 1)).isEqualTo(2);
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.example.nagoyameshi.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class OpeningHoursTests {
+	// 日曜（0）と月曜（1）
+	private static final int SUNDAY = 0;
+	private static final int MONDAY = 1;
+
+	// 枠の境界の時刻は新しい枠に入ること
+	@Test
+	void slotOfSplitsDayIntoHalfHours() {
+		assertThat(OpeningHours.slotOf(SUNDAY, LocalTime.of(0, 0))).isEqualTo(0);
+		assertThat(OpeningHours.slotOf(SUNDAY, LocalTime.of(0, 29, 59))).isEqualTo(0);
+		assertThat(OpeningHours.slotOf(SUNDAY, LocalTime.of(0, 30))).isEqualTo(1);
+		assertThat(OpeningHours.slotOf(MONDAY, LocalTime.of(11, 20))).isEqualTo(OpeningHours.SLOTS_PER_DAY + 22);
+		assertThat(OpeningHours.slotOf(6, LocalTime.of(23, 59))).isEqualTo(OpeningHours.SLOTS - 1);
+	}
+
+	// 30分ちょうどの営業時間は、閉店時刻から始まる枠を含まないこと
+	@Test
+	void slotsOfCoversHalfHourBoundaries() {
+		BitSet slots = OpeningHours.slotsOf(minutes(11, 0), minutes(14, 0), List.of());
+
+		assertThat(slots.get(MONDAY * OpeningHours.SLOTS_PER_DAY + 21)).isFalse();
+		assertThat(slots.get(MONDAY * OpeningHours.SLOTS_PER_DAY + 22)).isTrue();
+		assertThat(slots.get(MONDAY * OpeningHours.SLOTS_PER_DAY + 27)).isTrue();
+		assertThat(slots.get(MONDAY * OpeningHours.SLOTS_PER_DAY + 28)).isFalse();
+		assertThat(slots.cardinality()).isEqualTo(7 * 6);
+	}
+
+	// 枠の途中で開店・閉店する場合も、その枠を候補に含めること
+	@Test
+	void slotsOfIncludesPartiallyOpenSlots() {
+		BitSet slots = OpeningHours.slotsOf(minutes(11, 15), minutes(21, 45), List.of());
+
+		assertThat(slots.get(OpeningHours.slotOf(MONDAY, LocalTime.of(11, 0)))).isTrue();
+		assertThat(slots.get(OpeningHours.slotOf(MONDAY, LocalTime.of(10, 30)))).isFalse();
+		assertThat(slots.get(OpeningHours.slotOf(MONDAY, LocalTime.of(21, 30)))).isTrue();
+		assertThat(slots.get(OpeningHours.slotOf(MONDAY, LocalTime.of(22, 0)))).isFalse();
+	}
+
+	@Test
+	void slotsOfSkipsClosedDays() {
+		BitSet slots = OpeningHours.slotsOf(minutes(11, 0), minutes(14, 0), List.of(SUNDAY, 6));
+
+		assertThat(slots.get(OpeningHours.slotOf(SUNDAY, LocalTime.of(12, 0)))).isFalse();
+		assertThat(slots.get(OpeningHours.slotOf(6, LocalTime.of(12, 0)))).isFalse();
+		assertThat(slots.get(OpeningHours.slotOf(MONDAY, LocalTime.of(12, 0)))).isTrue();
+		assertThat(slots.cardinality()).isEqualTo(5 * 6);
+	}
+
+	// 開店時刻ちょうどは営業中、閉店時刻ちょうどは営業時間外
+	@Test
+	void isOpenComparesExactMinutes() {
+		int opening = minutes(11, 15);
+		int closing = minutes(21, 45);
+
+		assertThat(OpeningHours.isOpen(opening, closing, minutes(11, 14))).isFalse();
+		assertThat(OpeningHours.isOpen(opening, closing, minutes(11, 15))).isTrue();
+		assertThat(OpeningHours.isOpen(opening, closing, minutes(11, 20))).isTrue();
+		assertThat(OpeningHours.isOpen(opening, closing, minutes(21, 44))).isTrue();
+		assertThat(OpeningHours.isOpen(opening, closing, minutes(21, 45))).isFalse();
+		assertThat(OpeningHours.isOpen(opening, closing, minutes(21, 50))).isFalse();
+	}
+
+	// 営業している時刻は必ず枠のビットが立っていること（枠で候補を絞り込んでも漏れない）
+	@Test
+	void slotsOfContainsEveryOpenMinute() {
+		int opening = minutes(11, 15);
+		int closing = minutes(21, 45);
+		BitSet slots = OpeningHours.slotsOf(opening, closing, List.of(SUNDAY));
+
+		for (int minute = 0; minute < 24 * 60; minute++) {
+			LocalTime time = LocalTime.of(minute / 60, minute % 60);
+			if (OpeningHours.isOpen(opening, closing, minute)) {
+				assertThat(slots.get(OpeningHours.slotOf(MONDAY, time))).as(time.toString()).isTrue();
+				assertThat(slots.get(OpeningHours.slotOf(SUNDAY, time))).as(time.toString()).isFalse();
+			}
+		}
+	}
+
+	@Test
+	void minutesOfTruncatesSeconds() {
+		assertThat(OpeningHours.minutesOf(LocalTime.of(11, 15, 59))).isEqualTo(minutes(11, 15));
+		assertThat(OpeningHours.minutesOf(null)).isEqualTo(0);
+	}
+
+	private static int minutes(int hour, int minute) {
+		return hour * 60 + minute;
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.example.nagoyameshi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.example.nagoyameshi.entity.Restaurant;
+import com.example.nagoyameshi.form.RestaurantEditForm;
+import com.example.nagoyameshi.form.RestaurantRegisterForm;
+import com.example.nagoyameshi.repository.RestaurantRepository;
+
+@SpringBootTest
+class HomePageCacheTests {
+
+	@Autowired
+	private HomePageCache homePageCache;
+
+	@Autowired
+	private RestaurantService restaurantService;
+
+	@Autowired
+	private RestaurantRepository restaurantRepository;
+
+	private Integer createdRestaurantId;
+
+	@AfterEach
+	void tearDown() {
+		if (createdRestaurantId != null) {
+			restaurantRepository.findById(createdRestaurantId).ifPresent(restaurantService::delete);
+		}
+	}
+
+	// 登録のコミット後に作り直したスナップショットに、データベースの値で読み直した店舗が含まれること
+	@Test
+	void createdRestaurantAppearsInSnapshot() {
+		String name = "テスト店舗" + UUID.randomUUID();
+		restaurantService.create(registerForm(name));
+
+		Restaurant restaurant = findNewRestaurant(name);
+
+		assertThat(restaurant).isNotNull();
+		createdRestaurantId = restaurant.getId();
+		assertThat(restaurant.getCreatedAt()).isNotNull();
+		assertThat(restaurant.getUpdatedAt()).isNotNull();
+		assertThat(restaurant.getCategories()).isEmpty();
+	}
+
+	// 更新のコミット後に作り直したスナップショットに、新しい店舗名が反映されること
+	@Test
+	void updatedRestaurantAppearsInSnapshot() {
+		String name = "テスト店舗" + UUID.randomUUID();
+		restaurantService.create(registerForm(name));
+		createdRestaurantId = findNewRestaurant(name).getId();
+
+		String newName = "テスト店舗" + UUID.randomUUID();
+		restaurantService.update(new RestaurantEditForm(createdRestaurantId, newName, emptyImage(), "説明", 1000, 2000, "4500000", "愛知県名古屋市中区栄X-XX-XX",
+				                                        LocalTime.of(11, 0), LocalTime.of(21, 0), null, 20, null));
+
+		assertThat(findNewRestaurant(name)).isNull();
+		assertThat(findNewRestaurant(newName)).isNotNull();
+	}
+
+	private Restaurant findNewRestaurant(String name) {
+		return homePageCache.getSnapshot().getNewRestaurants().stream()
+				            .filter(restaurant -> name.equals(restaurant.getName()))
+				            .findFirst()
+				            .orElse(null);
+	}
+
+	private static RestaurantRegisterForm registerForm(String name) {
+		RestaurantRegisterForm restaurantRegisterForm = new RestaurantRegisterForm();
+		restaurantRegisterForm.setName(name);
+		restaurantRegisterForm.setImage(emptyImage());
+		restaurantRegisterForm.setDescription("説明");
+		restaurantRegisterForm.setLowestPrice(1000);
+		restaurantRegisterForm.setHighestPrice(2000);
+		restaurantRegisterForm.setPostalCode("4500000");
+		restaurantRegisterForm.setAddress("愛知県名古屋市中区栄X-XX-XX");
+		restaurantRegisterForm.setOpeningTime(LocalTime.of(11, 0));
+		restaurantRegisterForm.setClosingTime(LocalTime.of(21, 0));
+		restaurantRegisterForm.setSeatingCapacity(20);
+		return restaurantRegisterForm;
+	}
+
+	private static MockMultipartFile emptyImage() {
+		return new MockMultipartFile("image", new byte[0]);
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.example.nagoyameshi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.example.nagoyameshi.repository.RestaurantSummary;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RestaurantListingServiceTests {
+
+	@Autowired
+	private RestaurantListingService restaurantListingService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	// ページサイズに関わらず、カテゴリを含めた1ページ分のSQLの発行回数が一定であること
+	@Test
+	void statementCountIsIndependentOfPageSize() {
+		assertThat(countStatements(2)).isEqualTo(countStatements(10));
+	}
+
+	// 一覧・カテゴリの2回のみ（件数は店舗カタログで数え、店舗ごとのカテゴリ取得も発生しない）
+	@Test
+	void categoriesAreBatchLoaded() {
+		assertThat(countStatements(10)).isEqualTo(2);
+	}
+
+	private long countStatements(int size) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		RestaurantSearchCondition condition = new RestaurantSearchCondition(null, null, null, null, null, null, false, null);
+		statistics.clear();
+
+		RestaurantKeysetPage restaurantPage = restaurantListingService.findRestaurants(condition, null, null, null, null, 0, size);
+		for (RestaurantSummary restaurant : restaurantPage) {
+			restaurantPage.getCategories(restaurant).forEach(category -> category.getName());
+		}
+
+		assertThat(restaurantPage.getContent()).hasSize(size);
+		return statistics.getPrepareStatementCount();
+	}
+
+}